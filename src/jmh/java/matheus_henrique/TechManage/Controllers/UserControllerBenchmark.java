@@ -0,0 +1,90 @@
+package matheus_henrique.TechManage.Controllers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import gen.model.ResponseModel;
+import matheus_henrique.TechManage.Enums.EUserType;
+import matheus_henrique.TechManage.Infra.PhoneNormalizer;
+import matheus_henrique.TechManage.Models.User;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Só a parte de CPU de uma requisição: normalizar o telefone que chega e serializar o ResponseModel
+// que sai, com um usuário (GET /api/users/{id}) ou uma página (GET /api/users)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserControllerBenchmark {
+    private static final String[] PHONES = {
+            "+55 11 99999-9999",
+            "(11) 98888-7777",
+            "+5511977776666",
+            "+55 (21) 3333-4444",
+            "11:91234-5678"
+    };
+
+    @State(Scope.Benchmark)
+    public static class Response {
+        @Param({"1", "100", "1000"})
+        public int users;
+
+        // mesma configuração de datas do ObjectMapper do Spring Boot
+        private final ObjectMapper objectMapper = JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        private ResponseModel model;
+
+        @Setup
+        public void setUp() {
+            List<User> page = new ArrayList<>(users);
+            for (int i = 0; i < users; i++)
+                page.add(User.builder()
+                        .id((long) i)
+                        .fullName("Benchmark User " + i)
+                        .email("user" + i + "@benchmark.com")
+                        .phone("+55" + (11_000_000_000L + i))
+                        .birthDate(LocalDate.of(1950, 1, 1).plusDays(i))
+                        .userType(EUserType.values()[i % EUserType.values().length])
+                        .build());
+
+            model = users == 1
+                    ? new ResponseModel().addDataItem(page.get(0))
+                    : new ResponseModel(List.of(), Collections.singletonList(page), Integer.toString(users));
+        }
+    }
+
+    @Benchmark
+    public void normalizePhone(Blackhole blackhole) {
+        for (String phone : PHONES)
+            blackhole.consume(PhoneNormalizer.normalize(phone));
+    }
+
+    // Versão anterior (cinco replace encadeados), como referência para a de uma passada só
+    @Benchmark
+    public void normalizePhone_ReplaceChain(Blackhole blackhole) {
+        for (String phone : PHONES)
+            blackhole.consume(phone
+                    .replace(" ", "")
+                    .replace("-", "")
+                    .replace("(", "")
+                    .replace(")", "")
+                    .replace(":", ""));
+    }
+
+    @Benchmark
+    public byte[] serializeResponseModel(Response response) throws JsonProcessingException {
+        return response.objectMapper.writeValueAsBytes(response.model);
+    }
+}
@@ -0,0 +1,98 @@
+package matheus_henrique.TechManage.Infra;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import ch.qos.logback.core.util.Duration;
+import net.logstash.logback.appender.LoggingEventAsyncDisruptorAppender;
+import net.logstash.logback.encoder.LogstashEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.MDC;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+// Custo de um evento de log na thread da request. sync_plain: a configuração anterior (pattern
+// escrito por quem loga); async_json: o logback-spring.xml fora de dev/test (ring buffer e JSON na
+// thread do appender). Com o buffer cheio os eventos são descartados, então async_json mede só o
+// custo na thread da request
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingBenchmark {
+    private static final Path DIR = Path.of("target", "jmh-logging");
+
+    @Param({"sync_plain", "async_json"})
+    public String pipeline;
+
+    private LoggerContext context;
+    private Logger logger;
+
+    @Setup
+    public void setUp() throws IOException {
+        Files.createDirectories(DIR);
+        context = new LoggerContext();
+        context.setMDCAdapter(MDC.getMDCAdapter());
+
+        var file = new OutputStreamAppender<ILoggingEvent>();
+        file.setContext(context);
+        file.setEncoder(encoder());
+        file.setOutputStream(new FileOutputStream(DIR.resolve(pipeline + ".log").toFile()));
+        file.start();
+
+        Appender<ILoggingEvent> appender = file;
+        if (pipeline.equals("async_json")) {
+            var async = new LoggingEventAsyncDisruptorAppender();
+            async.setContext(context);
+            async.setRingBufferSize(8192);
+            // a política de application.properties: descarta quando o ring buffer enche
+            async.setAppendTimeout(Duration.buildByMilliseconds(0));
+            async.addAppender(file);
+            async.start();
+            appender = async;
+        }
+
+        logger = context.getLogger(LoggingBenchmark.class);
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+        MDC.put(RequestIdFilter.MDC_KEY, "5984a984bc308cf6");
+    }
+
+    @TearDown
+    public void tearDown() {
+        MDC.clear();
+        context.stop();
+    }
+
+    @Benchmark
+    public void warn() {
+        logger.warn("Request acima dos limites de SQL: {} {} {}",
+                kv("method", "GET"), kv("uri", "/api/users"), kv("statements", 21));
+    }
+
+    private Encoder<ILoggingEvent> encoder() {
+        if (pipeline.equals("async_json")) {
+            var encoder = new LogstashEncoder();
+            encoder.setContext(context);
+            encoder.start();
+            return encoder;
+        }
+        var encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%X{requestId:-}] %t --- %logger{39} : %m%n");
+        encoder.start();
+        return encoder;
+    }
+}
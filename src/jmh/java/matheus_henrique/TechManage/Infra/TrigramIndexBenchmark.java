@@ -0,0 +1,111 @@
+package matheus_henrique.TechManage.Infra;
+
+import matheus_henrique.TechManage.Models.UserSearchPage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Busca no TrigramIndex contra percorrer todos os usuários com contains (como filtrar a lista inteira
+// ou um LIKE '%...%'). Nomes sintéticos de poucas centenas de nomes e sobrenomes, então palavras comuns
+// acertam boa parte da tabela. build mede só a montagem a partir das linhas em memória
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class TrigramIndexBenchmark {
+    private static final String[] FIRST = {"ana", "bruno", "carla", "daniel", "elisa", "fabio", "gabriela",
+            "heitor", "isabela", "joão", "karina", "lucas", "mariana", "nicolas", "otávio", "paula", "rafael",
+            "sofia", "thiago", "vitória"};
+    private static final String[] LAST = {"silva", "souza", "santos", "oliveira", "costa", "pereira", "rodrigues",
+            "almeida", "nascimento", "lima", "araújo", "fernandes", "carvalho", "gomes", "martins", "rocha",
+            "ribeiro", "barbosa", "melo", "cardoso"};
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    private long[] ids;
+    private String[] names;
+    private String[] emails;
+    private TrigramIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ids = new long[users];
+        names = new String[users];
+        emails = new String[users];
+        for (int i = 0; i < users; i++) {
+            String first = FIRST[random.nextInt(FIRST.length)];
+            String middle = LAST[random.nextInt(LAST.length)];
+            String last = LAST[random.nextInt(LAST.length)] + (i % 97 == 0 ? "" : random.nextInt(500));
+            ids[i] = i + 1;
+            names[i] = capitalize(first) + " " + capitalize(middle) + " " + capitalize(last);
+            emails[i] = first + "." + last + i + "@example.com";
+        }
+
+        long before = usedHeap();
+        index = build();
+        long after = usedHeap();
+        System.out.printf("%n%d usuários: memoryBytes %d KB, heap %d KB%n",
+                users, index.memoryBytes() / 1024, (after - before) / 1024);
+    }
+
+    // Nome comum: casa com uns 5% da tabela, só a primeira página é devolvida
+    @Benchmark
+    public UserSearchPage search_CommonName() {
+        return index.search("mariana", 0, 20);
+    }
+
+    // Duas palavras, a interseção fica pequena
+    @Benchmark
+    public UserSearchPage search_NameAndSurname() {
+        return index.search("mari rocha", 0, 20);
+    }
+
+    // Parte de um email, poucos resultados
+    @Benchmark
+    public UserSearchPage search_EmailFragment() {
+        return index.search("martins123", 0, 20);
+    }
+
+    @Benchmark
+    public List<Long> scan_CommonName() {
+        return scan("mariana");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public TrigramIndex build() {
+        var next = new TrigramIndex();
+        for (int i = 0; i < users; i++)
+            next.put(ids[i], names[i], emails[i]);
+        return next;
+    }
+
+    private List<Long> scan(String query) {
+        List<Long> found = new ArrayList<>();
+        for (int i = 0; i < users; i++)
+            if (TrigramIndex.normalize(names[i]).contains(query) || emails[i].contains(query))
+                found.add(ids[i]);
+        return found;
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
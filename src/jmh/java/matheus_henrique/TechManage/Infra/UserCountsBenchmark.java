@@ -0,0 +1,62 @@
+package matheus_henrique.TechManage.Infra;
+
+import gen.model.UserStatsModel;
+import matheus_henrique.TechManage.Enums.EUserType;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// snapshot (GET /api/users/stats) e um update (dois deltas) com 100 mil e 1 milhão de usuários:
+// nenhum dos dois, nem o heap das contagens que o setUp imprime, deve mudar com o número de usuários
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserCountsBenchmark {
+    private static final EUserType[] TYPES = EUserType.values();
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    private UserCounts counts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        long before = usedHeap();
+        counts = new UserCounts();
+        for (int i = 0; i < users; i++)
+            counts.add(TYPES[random.nextInt(TYPES.length)], birthDate(random.nextInt(30_000)), 1);
+        long after = usedHeap();
+        System.out.printf("%n%d usuários: heap %d KB%n", users, (after - before) / 1024);
+    }
+
+    @Benchmark
+    public UserStatsModel snapshot() {
+        return counts.snapshot(TODAY);
+    }
+
+    @Benchmark
+    public void update() {
+        var random = ThreadLocalRandom.current();
+        counts.add(TYPES[random.nextInt(TYPES.length)], birthDate(random.nextInt(30_000)), -1);
+        counts.add(TYPES[random.nextInt(TYPES.length)], birthDate(random.nextInt(30_000)), 1);
+    }
+
+    private static LocalDate birthDate(int daysAgo) {
+        return TODAY.minusDays(daysAgo);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,162 @@
+package matheus_henrique.TechManage.Services;
+
+import matheus_henrique.TechManage.Enums.EUserSortField;
+import matheus_henrique.TechManage.Enums.EUserType;
+import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Infra.UniquenessFilter;
+import matheus_henrique.TechManage.Models.User;
+import matheus_henrique.TechManage.Models.UserCursor;
+import matheus_henrique.TechManage.Models.UserFilter;
+import matheus_henrique.TechManage.Models.UserPage;
+import matheus_henrique.TechManage.Models.UserView;
+import matheus_henrique.TechManage.TechManageApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// UserService contra o H2 de verdade, com tableSize usuários na tabela. Cada fork sobe o próprio
+// contexto, então caches e banco começam vazios em cada trial
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+    private static final int SEED_CHUNK = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int tableSize;
+
+    private ConfigurableApplicationContext context;
+    private UserService service;
+    private UserRepository repository;
+    private long[] ids;
+    private final AtomicLong nextUser = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(TechManageApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--techmanage.seed.enabled=false",
+                        "--logging.level.root=WARN"
+                );
+        service = context.getBean(UserService.class);
+        repository = context.getBean(UserRepository.class);
+
+        ids = new long[tableSize];
+        for (int from = 0; from < tableSize; from += SEED_CHUNK) {
+            List<User> chunk = new ArrayList<>(SEED_CHUNK);
+            for (int i = from; i < Math.min(from + SEED_CHUNK, tableSize); i++)
+                chunk.add(newUser(i));
+
+            repository.insertInBatches(chunk);
+            for (int i = 0; i < chunk.size(); i++)
+                ids[from + i] = chunk.get(i).getId();
+        }
+        nextUser.set(tableSize);
+        // as linhas acima não passam pela UserService: o filtro é montado de novo com elas
+        context.getBean(UniquenessFilter.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User getUserById() {
+        return service.getUserById(ids[randomIndex()]);
+    }
+
+    // Leitura direta no banco, sem o UserCache: entidade gerenciada contra projeção
+    @Benchmark
+    public User findById_Entity() {
+        return repository.findById(ids[randomIndex()]).orElseThrow();
+    }
+
+    @Benchmark
+    public UserView getUserView() {
+        return service.getUserView(ids[randomIndex()]);
+    }
+
+    @Benchmark
+    public UserPage getUsersPage() {
+        return service.getUsersPage(UserFilter.NONE, new UserCursor(EUserSortField.ID, null, ids[randomIndex()]), null);
+    }
+
+    @Benchmark
+    public User createUser() {
+        return service.createUser(newUser(nextUser.getAndIncrement()));
+    }
+
+    @Benchmark
+    public User updateUser() {
+        int index = randomIndex();
+        // mesmo email e telefone da linha original, só o nome muda
+        User user = newUser(index);
+        user.setId(ids[index]);
+        user.setFullName("Updated User " + index);
+        return service.updateUser(user);
+    }
+
+    @Benchmark
+    public boolean deleteUser(DeleteTarget target) {
+        return service.deleteUser(target.id);
+    }
+
+    // Email e telefone novos: o filtro de unicidade descarta os dois sem ir ao banco
+    @Benchmark
+    public List<String> validateNewUsers_Free() {
+        return service.validateNewUsers(List.of(newUser(-1 - randomIndex())));
+    }
+
+    // Email e telefone de uma linha da tabela: os dois são confirmados no banco
+    @Benchmark
+    public List<String> validateNewUsers_Taken() {
+        return service.validateNewUsers(List.of(newUser(randomIndex())));
+    }
+
+    // Um usuário novo para cada delete, assim a tabela não encolhe durante a medição.
+    // Setup por invocação custa alguns microssegundos, pouco perto de um delete no banco
+    @State(Scope.Thread)
+    public static class DeleteTarget {
+        private long id;
+
+        @Setup(Level.Invocation)
+        public void create(UserServiceBenchmark benchmark) {
+            id = benchmark.repository.saveAndFlush(newUser(benchmark.nextUser.getAndIncrement())).getId();
+        }
+    }
+
+    private int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(tableSize);
+    }
+
+    private static User newUser(long index) {
+        return User.builder()
+                .fullName("Benchmark User " + index)
+                .email(email(index))
+                .phone(phone(index))
+                .birthDate(LocalDate.of(1950, 1, 1).plusDays(Math.floorMod(index, 20_000)))
+                .userType(EUserType.values()[(int) Math.floorMod(index, EUserType.values().length)])
+                .build();
+    }
+
+    private static String email(long index) {
+        return "user" + index + "@benchmark.com";
+    }
+
+    private static String phone(long index) {
+        return "+55" + (11_000_000_000L + index);
+    }
+}
@@ -0,0 +1,86 @@
+package matheus_henrique.TechManage.Load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+// load.properties do classpath, sobrescrito pelos argumentos chave=valor.
+// threads: uma execução por item (platform/virtual); slos: limite em ms por percentil (99.9 = p999)
+public record LoadConfig(List<String> threads,
+                         Duration warmup,
+                         Duration duration,
+                         int concurrency,
+                         int rate,
+                         int seedCopies,
+                         Map<Operation, Integer> mix,
+                         Map<Operation, Map<Double, Double>> slos,
+                         double maxErrorRate) {
+
+    public static final String PLATFORM = "platform";
+    public static final String VIRTUAL = "virtual";
+
+    public static LoadConfig from(String[] args) {
+        Properties properties = new Properties();
+        try (InputStream in = LoadConfig.class.getResourceAsStream("/load.properties")) {
+            if (in != null)
+                properties.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals < 1)
+                throw new IllegalArgumentException("Argumento inválido, esperado chave=valor: " + arg);
+            properties.setProperty(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        Map<Operation, Map<Double, Double>> slos = new EnumMap<>(Operation.class);
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            if (key.startsWith("mix.")) {
+                mix.put(Operation.fromValue(key.substring(4)), Integer.parseInt(value));
+            } else if (key.startsWith("slo.") && !key.equals("slo.errors")) {
+                String[] parts = key.split("\\.");
+                if (parts.length != 3 || !parts[2].startsWith("p"))
+                    throw new IllegalArgumentException("SLO inválido, esperado slo.<operação>.p<percentil>: " + key);
+                slos.computeIfAbsent(Operation.fromValue(parts[1]), op -> new TreeMap<>())
+                        .put(percentile(parts[2].substring(1)), Double.parseDouble(value));
+            }
+        }
+
+        List<String> threads = List.of(properties.getProperty("threads", PLATFORM).split("\\s*,\\s*"));
+        for (String mode : threads) {
+            if (!mode.equals(PLATFORM) && !mode.equals(VIRTUAL))
+                throw new IllegalArgumentException("Modo de threads inválido, esperado platform ou virtual: " + mode);
+        }
+
+        return new LoadConfig(
+                threads,
+                DurationStyle.detectAndParse(properties.getProperty("warmup", "10s")),
+                DurationStyle.detectAndParse(properties.getProperty("duration", "30s")),
+                Integer.parseInt(properties.getProperty("concurrency", "64")),
+                Integer.parseInt(properties.getProperty("rate", "0")),
+                Integer.parseInt(properties.getProperty("seed.copies", "100")),
+                mix,
+                slos,
+                Double.parseDouble(properties.getProperty("slo.errors", "0"))
+        );
+    }
+
+    // "50" -> 50, "99" -> 99, "999" -> 99.9, "9999" -> 99.99
+    private static double percentile(String digits) {
+        if (digits.length() <= 2)
+            return Double.parseDouble(digits);
+        return Double.parseDouble(digits.substring(0, 2) + "." + digits.substring(2));
+    }
+}
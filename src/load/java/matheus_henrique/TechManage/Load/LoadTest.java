@@ -0,0 +1,240 @@
+package matheus_henrique.TechManage.Load;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Models.User;
+import matheus_henrique.TechManage.TechManageApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Teste de carga de /api/users: sobe a aplicação numa porta aleatória, semeia cópias do
+// UsersFallback.json e roda o mix de operações. Sai com status 1 (e falha o build) se um SLO
+// não for atendido. Com threads=platform,virtual roda uma vez em cada modo, numa aplicação nova.
+// mvn -Pload test-compile exec:exec -Dload.args="duration=60s concurrency=128"
+public class LoadTest {
+    // latências de 1 µs até 1 min, com 3 dígitos significativos
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final Path REPORT_DIR = Path.of("target", "load");
+
+    public static void main(String[] args) throws Exception {
+        var config = LoadConfig.from(args);
+
+        Map<String, Summary> summaries = new LinkedHashMap<>();
+        for (String threads : config.threads())
+            summaries.put(threads, run(config, threads));
+
+        if (summaries.size() > 1) {
+            System.out.printf("%n%-10s %10s %10s %9s %9s %9s%n", "threads", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms");
+            summaries.forEach((threads, summary) -> System.out.printf("%-10s %10d %10.1f %9.2f %9.2f %9.2f%n",
+                    threads, summary.latencies().getTotalCount(), summary.throughput(),
+                    millis(summary.latencies(), 50), millis(summary.latencies(), 99), millis(summary.latencies(), 99.9)));
+        }
+
+        boolean passed = summaries.values().stream().allMatch(Summary::passed);
+        System.exit(passed ? 0 : 1);
+    }
+
+    // Todas as operações juntas, para comparar os modos de thread
+    private record Summary(boolean passed, double throughput, Histogram latencies) {
+    }
+
+    private static Summary run(LoadConfig config, String threads) throws Exception {
+        System.out.println("\n******** Threads " + threads + " ********");
+        var context = new SpringApplicationBuilder(TechManageApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + threads.equals(LoadConfig.VIRTUAL),
+                        "--techmanage.seed.enabled=false",
+                        "--logging.level.root=WARN"
+                );
+
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            var objectMapper = context.getBean(ObjectMapper.class);
+            var seeded = seed(context, objectMapper, config.seedCopies());
+            System.out.println("Usuários inseridos: " + seeded.size());
+
+            var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            var scenario = new UserScenario(client, URI.create("http://localhost:" + port), objectMapper, seeded);
+
+            return measure(config, scenario, REPORT_DIR.resolve(threads));
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Summary measure(LoadConfig config, UserScenario scenario, Path reportDir) throws Exception {
+        Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+        for (Operation operation : config.mix().keySet()) {
+            recorders.put(operation, new Recorder(MAX_LATENCY_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+        var picker = new OperationPicker(config.mix());
+
+        long start = System.nanoTime();
+        long measureFrom = start + config.warmup().toNanos();
+        long end = measureFrom + config.duration().toNanos();
+        // intervalo entre requisições de cada conexão quando há uma taxa fixa
+        long interval = config.rate() > 0 ? TimeUnit.SECONDS.toNanos(config.concurrency()) / config.rate() : 0;
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.concurrency(); i++) {
+                long first = start + (interval == 0 ? 0 : interval * i / config.concurrency());
+                workers.submit(() -> {
+                    long intended = first;
+                    while (intended < end) {
+                        if (interval > 0)
+                            LockSupport.parkNanos(intended - System.nanoTime());
+
+                        Operation operation = picker.next();
+                        long sent = interval > 0 ? intended : System.nanoTime();
+                        boolean ok = scenario.run(operation);
+                        long now = System.nanoTime();
+
+                        recorders.get(operation).recordValue(Math.min(MAX_LATENCY_MICROS, (now - sent) / 1_000));
+                        if (!ok && sent >= measureFrom)
+                            errors.get(operation).increment();
+
+                        intended = interval > 0 ? intended + interval : now;
+                    }
+                });
+            }
+
+            // o aquecimento fica no primeiro intervalo de cada histograma, que é descartado
+            TimeUnit.NANOSECONDS.sleep(measureFrom - System.nanoTime());
+            recorders.values().forEach(Recorder::reset);
+        }
+
+        return report(config, recorders, errors, reportDir);
+    }
+
+    private static Summary report(LoadConfig config, Map<Operation, Recorder> recorders,
+                                  Map<Operation, LongAdder> errors, Path reportDir) throws IOException {
+        double seconds = config.duration().toMillis() / 1000.0;
+        Files.createDirectories(reportDir);
+        Histogram all = new Histogram(MAX_LATENCY_MICROS, 3);
+
+        List<String> violations = new ArrayList<>();
+        long totalCount = 0, totalErrors = 0;
+
+        System.out.printf("%n%-12s %10s %10s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (var entry : recorders.entrySet()) {
+            Operation operation = entry.getKey();
+            Histogram histogram = entry.getValue().getIntervalHistogram();
+            all.add(histogram);
+            long count = histogram.getTotalCount();
+            long failed = errors.get(operation).sum();
+            totalCount += count;
+            totalErrors += failed;
+
+            System.out.printf("%-12s %10d %10.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation.getValue(), count, count / seconds, failed,
+                    millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                    histogram.getMaxValue() / 1000.0);
+
+            try (PrintStream out = new PrintStream(Files.newOutputStream(reportDir.resolve(operation.getValue() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+
+            for (var slo : config.slos().getOrDefault(operation, Map.of()).entrySet()) {
+                double actual = millis(histogram, slo.getKey());
+                if (actual > slo.getValue())
+                    violations.add(String.format("%s p%s = %.2f ms (limite %.2f ms)",
+                            operation.getValue(), slo.getKey(), actual, slo.getValue()));
+            }
+        }
+
+        double errorRate = totalCount == 0 ? 0 : (double) totalErrors / totalCount;
+        System.out.printf("%ntotal: %d requisições, %.1f req/s, %.4f%% de erros%n",
+                totalCount, totalCount / seconds, errorRate * 100);
+        System.out.println("Distribuições completas (HdrHistogram, em ms) em " + reportDir.toAbsolutePath());
+
+        if (errorRate > config.maxErrorRate())
+            violations.add(String.format("taxa de erros = %.4f%% (limite %.4f%%)",
+                    errorRate * 100, config.maxErrorRate() * 100));
+
+        if (!violations.isEmpty()) {
+            System.out.println("\nSLOs não atendidos:");
+            violations.forEach(violation -> System.out.println("  " + violation));
+        }
+        return new Summary(violations.isEmpty(), totalCount / seconds, all);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    // Cópias do arquivo fallback com email e telefone únicos, inseridas em batches
+    private static List<User> seed(ConfigurableApplicationContext context, ObjectMapper objectMapper,
+                                   int copies) throws IOException {
+        List<User> fallback;
+        try (InputStream in = LoadTest.class.getResourceAsStream("/UsersFallback.json")) {
+            fallback = objectMapper.readValue(in, new TypeReference<>() {});
+        }
+
+        var repository = context.getBean(UserRepository.class);
+        List<User> seeded = new ArrayList<>(fallback.size() * copies);
+        for (int copy = 0; copy < copies; copy++) {
+            List<User> chunk = new ArrayList<>(fallback.size());
+            for (User user : fallback) {
+                int at = user.getEmail().indexOf('@');
+                chunk.add(User.builder()
+                        .fullName(user.getFullName())
+                        .email(user.getEmail().substring(0, at) + "+" + copy + user.getEmail().substring(at))
+                        // sufixo de largura fixa, assim dois telefones diferentes nunca geram o mesmo valor
+                        .phone(user.getPhone().replaceAll("[^+0-9]", "") + String.format("%04d", copy))
+                        .birthDate(user.getBirthDate())
+                        .userType(user.getUserType())
+                        .build());
+            }
+            repository.insertInBatches(chunk);
+            seeded.addAll(chunk);
+        }
+        return seeded;
+    }
+
+    // Sorteia operações respeitando os pesos do mix
+    private static class OperationPicker {
+        private final Operation[] operations;
+        private final int[] cumulative;
+
+        OperationPicker(Map<Operation, Integer> mix) {
+            operations = mix.keySet().toArray(Operation[]::new);
+            cumulative = new int[operations.length];
+            int total = 0;
+            for (int i = 0; i < operations.length; i++) {
+                total += mix.get(operations[i]);
+                cumulative[i] = total;
+            }
+            if (total <= 0)
+                throw new IllegalArgumentException("O mix de operações precisa ter algum peso positivo");
+        }
+
+        Operation next() {
+            int value = ThreadLocalRandom.current().nextInt(cumulative[cumulative.length - 1]);
+            int index = Arrays.binarySearch(cumulative, value + 1);
+            return operations[index >= 0 ? index : -index - 1];
+        }
+    }
+}
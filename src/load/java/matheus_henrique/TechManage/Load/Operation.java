@@ -0,0 +1,31 @@
+package matheus_henrique.TechManage.Load;
+
+import lombok.Getter;
+
+@Getter
+public enum Operation {
+    GET_USER("getUser"),
+
+    GET_USERS("getUsers"),
+
+    CREATE_USER("createUser"),
+
+    UPDATE_USER("updateUser"),
+
+    DELETE_USER("deleteUser");
+
+    // nome usado em load.properties e no relatório
+    private String value;
+
+    Operation(String value) {
+        this.value = value;
+    }
+
+    public static Operation fromValue(String value) {
+        for (Operation operation : values()) {
+            if (operation.value.equals(value))
+                return operation;
+        }
+        throw new IllegalArgumentException("Operação inválida: " + value);
+    }
+}
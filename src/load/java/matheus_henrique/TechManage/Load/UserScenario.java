@@ -0,0 +1,114 @@
+package matheus_henrique.TechManage.Load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gen.model.UserModel;
+import matheus_henrique.TechManage.Models.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Deletes só removem usuários criados pelo próprio teste: os ids semeados valem até o fim
+public class UserScenario {
+    private final HttpClient client;
+    private final URI users;
+    private final ObjectMapper objectMapper;
+    private final List<User> seeded;
+    private final Queue<Long> created = new ConcurrentLinkedQueue<>();
+    private final AtomicLong nextUser = new AtomicLong();
+
+    public UserScenario(HttpClient client, URI baseUri, ObjectMapper objectMapper, List<User> seeded) {
+        this.client = client;
+        this.users = baseUri.resolve("/api/users");
+        this.objectMapper = objectMapper;
+        this.seeded = seeded;
+    }
+
+    // true para 2xx ou 304; falha de conexão conta como inesperado
+    public boolean run(Operation operation) {
+        try {
+            return switch (operation) {
+                case GET_USER -> send(get("/" + randomSeeded().getId()));
+                case GET_USERS -> send(get("?limit=100&after=" + randomSeeded().getId()));
+                case CREATE_USER -> create();
+                case UPDATE_USER -> update();
+                case DELETE_USER -> delete();
+            };
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean create() throws IOException, InterruptedException {
+        long n = nextUser.getAndIncrement();
+        var model = new UserModel()
+                .fullName("Load Test User " + n)
+                .email("load" + n + "@loadtest.com")
+                .phone("+55119" + String.format("%08d", n))
+                .birthDate(randomSeeded().getBirthDate())
+                .userType(UserModel.UserTypeEnum.VIEWER);
+
+        var response = client.send(json("", "POST", model), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200)
+            return false;
+
+        created.add(objectMapper.readTree(response.body()).path("data").path(0).path("id").asLong());
+        return true;
+    }
+
+    private boolean update() throws IOException, InterruptedException {
+        User user = randomSeeded();
+        var model = new UserModel()
+                .fullName(user.getFullName() + " " + nextUser.getAndIncrement())
+                .email(user.getEmail())
+                .phone(user.getPhone())
+                .birthDate(user.getBirthDate())
+                .userType(UserModel.UserTypeEnum.fromValue(user.getUserType().name()));
+
+        return send(json("/" + user.getId(), "PUT", model));
+    }
+
+    // sem usuário criado ainda para apagar, cria um
+    private boolean delete() throws IOException, InterruptedException {
+        Long id = created.poll();
+        if (id == null)
+            return create();
+
+        return send(HttpRequest.newBuilder(URI.create(users + "/" + id)).DELETE().build());
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(users + path)).GET().build();
+    }
+
+    private HttpRequest json(String path, String method, UserModel model) {
+        try {
+            return HttpRequest.newBuilder(URI.create(users + path))
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(model)))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean send(HttpRequest request) throws IOException, InterruptedException {
+        int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        return (status >= 200 && status < 300) || status == 304;
+    }
+
+    private User randomSeeded() {
+        return seeded.get(ThreadLocalRandom.current().nextInt(seeded.size()));
+    }
+}
@@ -1,53 +1,77 @@
 package matheus_henrique.TechManage.Controllers;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import gen.api.ApiApi;
 import gen.model.ResponseModel;
 import gen.model.UserModel;
+import gen.model.UserPatchModel;
+import matheus_henrique.TechManage.Enums.EApiOutcome;
+import matheus_henrique.TechManage.Enums.EUserSortField;
 import matheus_henrique.TechManage.Enums.EUserType;
+import matheus_henrique.TechManage.Exceptions.UserAlreadyExistsException;
+import matheus_henrique.TechManage.Exceptions.UserVersionMismatchException;
+import matheus_henrique.TechManage.Infra.ApiMetrics;
+import matheus_henrique.TechManage.Infra.PhoneNormalizer;
+import matheus_henrique.TechManage.Infra.ResponseCache;
+import matheus_henrique.TechManage.Infra.UserChangeFeed;
+import matheus_henrique.TechManage.Infra.UserSearchIndex;
+import matheus_henrique.TechManage.Infra.UserStats;
+import matheus_henrique.TechManage.Infra.VersionETag;
+import matheus_henrique.TechManage.Models.SerializedResponse;
 import matheus_henrique.TechManage.Models.User;
+import matheus_henrique.TechManage.Models.UserCursor;
+import matheus_henrique.TechManage.Models.UserFilter;
+import matheus_henrique.TechManage.Models.UserPage;
+import matheus_henrique.TechManage.Models.UserPatch;
+import matheus_henrique.TechManage.Models.UserSearchPage;
+import matheus_henrique.TechManage.Models.UserView;
 import matheus_henrique.TechManage.Services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.openapitools.jackson.nullable.JsonNullable;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController implements ApiApi {
     @Autowired
     private UserService service;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ResponseCache responseCache;
+    @Autowired
+    private UserSearchIndex searchIndex;
+    @Autowired
+    private UserStats stats;
+    @Autowired
+    private UserChangeFeed changeFeed;
 
     @PostMapping()
     @Override
     public ResponseEntity<ResponseModel> addUser(UserModel userModel) {
-        if (service.emailAlreadyExists(userModel.getEmail()))
-            return ResponseEntity
-                    .badRequest()
-                    .body(new ResponseModel()
-                            .addErrorsItem("Email já existe no banco de dados!")
-                    );
-        if (service.phoneAlreadyExists(userModel.getPhone()))
-            return ResponseEntity
-                    .badRequest()
-                    .body(new ResponseModel()
-                            .addErrorsItem("Telefone já existe no banco de dados!")
-                    );
-
-        var newUser = User.builder()
-                .fullName(userModel.getFullName())
-                .email(userModel.getEmail())
-                .phone(userModel.getPhone()
-                        .replace(" ", "")
-                        .replace("-", "")
-                        .replace("(", "")
-                        .replace(")", "")
-                        .replace(":", "")
-                )
-                .birthDate(userModel.getBirthDate())
-                .userType(EUserType.valueOf(userModel.getUserType().getValue()))
-                .build();
+        var newUser = toUser(userModel);
 
         try {
             var response = service.createUser(newUser);
@@ -64,19 +88,103 @@ public class UserController implements ApiApi {
                         .ok(new ResponseModel()
                                 .addDataItem(response)
                         );
+        } catch (UserAlreadyExistsException e) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ResponseModel()
+                            .addErrorsItem(e.getMessage())
+                    );
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
+
+    @PostMapping("/bulk")
+    @Override
+    public ResponseEntity<ResponseModel> addUsers(List<UserModel> userModels) {
+        if (userModels == null || userModels.isEmpty())
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ResponseModel()
+                            .addErrorsItem("Nenhum usuário foi enviado!")
+                    );
+        if (userModels.stream().anyMatch(Objects::isNull))
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ResponseModel()
+                            .addErrorsItem("Usuário " + userModels.indexOf(null) + ": usuário nulo!")
+                    );
+
+        List<User> newUsers = userModels.stream().map(UserController::toUser).toList();
+
+        var errors = service.validateNewUsers(newUsers);
+        if (!errors.isEmpty())
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ResponseModel()
+                            .errors(errors)
+                    );
+
+        try {
+            var ids = service.createUsers(newUsers);
+
+            return ResponseEntity
+                    .ok(new ResponseModel()
+                            .data(new ArrayList<>(ids))
+                    );
+        } catch (UserAlreadyExistsException e) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ResponseModel()
+                            .addErrorsItem(e.getMessage())
+                    );
         } catch (Exception e) {
+            return failed(e);
+        }
+    }
+
+    // Mesmo import em lote, mas com um usuário por linha (NDJSON). A leitura para na primeira
+    // linha nula e no primeiro usuário além do limite, sem ler o resto do corpo
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseModel> addUsersNdjson(InputStream body) {
+        List<UserModel> userModels = new ArrayList<>();
+        try (MappingIterator<UserModel> lines = objectMapper.readerFor(UserModel.class).readValues(body)) {
+            while (lines.hasNext()) {
+                var userModel = lines.next();
+                if (userModel == null)
+                    return ResponseEntity
+                            .badRequest()
+                            .body(new ResponseModel()
+                                    .addErrorsItem("Usuário " + userModels.size() + ": usuário nulo!")
+                            );
+                if (userModels.size() == UserService.MAX_BULK_SIZE)
+                    return ResponseEntity
+                            .status(HttpStatus.PAYLOAD_TOO_LARGE)
+                            .body(new ResponseModel()
+                                    .addErrorsItem("Máximo de " + UserService.MAX_BULK_SIZE + " usuários por requisição!")
+                            );
+                userModels.add(userModel);
+            }
+        } catch (IOException | RuntimeJsonMappingException e) {
             return ResponseEntity
                     .badRequest()
                     .body(new ResponseModel()
-                            .addErrorsItem("Um Erro ocorreu ao processar a request: " + e.getMessage())
+                            .addErrorsItem("Não foi possível ler o NDJSON enviado: " + e.getMessage())
                     );
         }
+
+        return addUsers(userModels);
     }
 
     @DeleteMapping("/{id}")
     @Override
-    public ResponseEntity<ResponseModel> deleteUser(Long id) {
-        var wasDeleted = service.deleteUser(id);
+    public ResponseEntity<ResponseModel> deleteUser(Long id, String ifMatch) {
+        boolean wasDeleted;
+        try {
+            wasDeleted = service.deleteUser(id, VersionETag.parse(ifMatch));
+        } catch (UserVersionMismatchException e) {
+            return preconditionFailed(e);
+        }
 
         if (wasDeleted)
             return ResponseEntity
@@ -84,114 +192,385 @@ public class UserController implements ApiApi {
                             .addDataItem("Usuário foi deletado!")
                     );
         else
+            return notFound("Usuário não existe!");
+    }
+
+    @GetMapping("/{id}")
+    @Override
+    public ResponseEntity<ResponseModel> getUser(Long id, String ifNoneMatch) {
+        var response = responseCache.user(id, service::getUserView);
+
+        if (response == null)
+            return notFound("Usuário não foi encontrado!!");
+        else
+            return cached(response, ifNoneMatch);
+    }
+
+    @GetMapping("/search")
+    @Override
+    public ResponseEntity<ResponseModel> searchUsers(String q, Integer offset, Integer limit) {
+        int first = offset == null ? 0 : Math.min(Math.max(offset, 0), UserService.MAX_SEARCH_OFFSET);
+        int pageSize = limit == null ? UserService.DEFAULT_SEARCH_SIZE : Math.min(Math.max(limit, 1), UserService.MAX_SEARCH_SIZE);
+
+        UserSearchPage page;
+        try {
+            page = searchIndex.search(q == null ? "" : q, first, pageSize);
+        } catch (IllegalArgumentException e) {
             return ResponseEntity
                     .badRequest()
                     .body(new ResponseModel()
-                            .addErrorsItem("Usuário não existe!")
+                            .addErrorsItem(e.getMessage())
                     );
+        }
+
+        if (page == null)
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ResponseModel()
+                            .addErrorsItem("O índice de busca ainda está sendo montado, tente de novo em instantes")
+                    );
+        if (page.ids().isEmpty())
+            return ResponseEntity
+                    .noContent()
+                    .build();
+
+        // os dados vêm do cache de respostas ou de um IN só; quem foi apagado no meio tempo fica de fora
+        var users = responseCache.users(page.ids(), service::getUserViews);
+        var response = new ResponseModel(List.of(), new ArrayList<>(),
+                page.nextOffset() == null ? null : page.nextOffset().toString());
+        for (Long id : page.ids()) {
+            var user = users.get(id);
+            if (user != null)
+                response.addDataItem(user);
+        }
+        return ResponseEntity.ok(response);
     }
 
-    @GetMapping("/{id}")
+    @GetMapping("/stats")
     @Override
-    public ResponseEntity<ResponseModel> getUser(Long id) {
-        var user = service.getUserById(id);
-
-        if (user == null)
+    public ResponseEntity<ResponseModel> getUserStats() {
+        // contadores em memória: nenhuma consulta ao banco, qualquer que seja o tamanho da tabela
+        var snapshot = stats.snapshot();
+        if (snapshot == null)
             return ResponseEntity
-                    .badRequest()
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
                     .body(new ResponseModel()
-                            .addErrorsItem("Usuário não foi encontrado!!")
+                            .addErrorsItem("As estatísticas ainda estão sendo carregadas, tente de novo em instantes")
                     );
+
+        return ResponseEntity.ok(new ResponseModel().addDataItem(snapshot));
+    }
+
+    @GetMapping("/by-email/{email}")
+    @Override
+    public ResponseEntity<ResponseModel> getUsersByEmail(String email) {
+        var users = service.getUsersByEmail(email);
+
+        if (users.isEmpty())
+            return notFound("Usuário não foi encontrado!!");
         else
             return ResponseEntity
                     .ok(new ResponseModel()
-                            .addDataItem(user)
+                            .data(new ArrayList<>(users.stream().map(UserView::toModel).toList()))
                     );
     }
 
-    @GetMapping()
+    @GetMapping("/by-phone/{phone}")
     @Override
-    public ResponseEntity<ResponseModel> getUsers() {
-        List<User> users = service.getAllUser();
+    public ResponseEntity<ResponseModel> getUserByPhone(String phone) {
+        var user = service.getUserByPhone(phone);
 
-        if (users.isEmpty()) {
+        if (user == null)
+            return notFound("Usuário não foi encontrado!!");
+        else
             return ResponseEntity
-                    .noContent()
-                    .build();
-        }
-
-        return ResponseEntity
-                .ok(new ResponseModel(
-                                List.of(),
-                                Collections.singletonList(users)
-                        )
-                );
+                    .ok(new ResponseModel()
+                            .addDataItem(user.toModel())
+                    );
     }
 
-    @PutMapping("/{id}")
+    @GetMapping()
     @Override
-    public ResponseEntity<ResponseModel> updateUser(Long id, UserModel userModel) {
+    public ResponseEntity<ResponseModel> getUsers(Integer limit, String after, String userType, LocalDate birthDateFrom,
+                                                  LocalDate birthDateTo, String fullNamePrefix, String sort, String direction,
+                                                  List<Long> ids, String ifNoneMatch) {
+        if (ids != null)
+            return lookupUsers(ids);
 
-        User existingUser = service.getUserById(id);
-
-        if (existingUser == null) {
+        SerializedResponse response;
+        try {
+            var filter = toFilter(userType, birthDateFrom, birthDateTo, fullNamePrefix, sort, direction);
+            var cursor = after == null ? null : UserCursor.decode(after, filter.sortBy());
+            response = responseCache.page(filter, after, limit, () -> {
+                var page = service.getUsersPage(filter, cursor, limit);
+                return page.users().isEmpty() ? null : new ResponseModel(
+                        List.of(),
+                        Collections.singletonList(page.users()),
+                        page.nextCursor() == null ? null : page.nextCursor().encode()
+                );
+            });
+        } catch (IllegalArgumentException e) {
             return ResponseEntity
                     .badRequest()
                     .body(new ResponseModel()
-                            .addErrorsItem("User not found with ID: " + id)
+                            .addErrorsItem(e.getMessage())
                     );
         }
 
-        if (service.emailAlreadyExists(userModel.getEmail(), id))
+        if (response == null) {
+            return ResponseEntity
+                    .noContent()
+                    .build();
+        }
+
+        return cached(response, ifNoneMatch);
+    }
+
+    @PostMapping("/lookup")
+    @Override
+    public ResponseEntity<ResponseModel> lookupUsers(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || ids.stream().anyMatch(Objects::isNull))
             return ResponseEntity
                     .badRequest()
                     .body(new ResponseModel()
-                            .addErrorsItem("Email já existe no banco de dados!")
+                            .addErrorsItem("Nenhum id válido foi enviado!")
                     );
-        if (service.phoneAlreadyExists(userModel.getPhone(), id))
+        if (ids.size() > UserService.MAX_LOOKUP_SIZE)
             return ResponseEntity
                     .badRequest()
                     .body(new ResponseModel()
-                            .addErrorsItem("Telefone já existe no banco de dados!")
+                            .addErrorsItem("No máximo " + UserService.MAX_LOOKUP_SIZE + " ids por consulta!")
                     );
 
-        User userToUpdate = User
-                .builder()
-                .id(id)
-                .fullName(userModel.getFullName())
-                .email(userModel.getEmail())
-                .phone(userModel.getPhone()
-                        .replace(" ", "")
-                        .replace("-", "")
-                        .replace("(", "")
-                        .replace(")", "")
-                        .replace(":", "")
-                )
-                .birthDate(userModel.getBirthDate())
-                .userType(EUserType.valueOf(userModel.getUserType().getValue()))
-                .build();
+        var users = responseCache.users(ids, service::getUserViews);
+
+        // na ordem dos ids pedidos, repetidos inclusive
+        var response = new ResponseModel();
+        for (Long id : ids) {
+            var user = users.get(id);
+            if (user == null)
+                response.addErrorsItem("Usuário não foi encontrado: " + id);
+            else
+                response.addDataItem(user);
+        }
+        return ResponseEntity.ok(response);
+    }
 
+    // Modo streaming: percorre as páginas pelo cursor e escreve cada uma assim que chega,
+    // então a memória usada não depende do tamanho da tabela
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "userType", required = false) String userType,
+            @RequestParam(value = "birthDateFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate birthDateFrom,
+            @RequestParam(value = "birthDateTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate birthDateTo,
+            @RequestParam(value = "fullNamePrefix", required = false) String fullNamePrefix,
+            @RequestParam(value = "sort", required = false) String sort,
+            @RequestParam(value = "direction", required = false) String direction) {
+        UserFilter filter;
+        UserCursor first;
         try {
+            filter = toFilter(userType, birthDateFrom, birthDateTo, fullNamePrefix, sort, direction);
+            first = after == null ? null : UserCursor.decode(after, filter.sortBy());
+        } catch (IllegalArgumentException e) {
+            // antes do corpo: depois que ele começa a ser escrito o status 200 já foi enviado.
+            // O erro vai numa linha só, o conversor de JSON não escreve application/x-ndjson
+            var error = new ResponseModel()
+                    .addErrorsItem(e.getMessage());
+            return ResponseEntity
+                    .badRequest()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> {
+                        objectMapper.writeValue(out, error);
+                        out.write('\n');
+                    });
+        }
+
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(out)) {
+                UserCursor cursor = first;
+                do {
+                    var page = service.getUsersPage(filter, cursor, UserService.MAX_PAGE_SIZE);
+                    writer.writeAll(page.users());
+                    writer.flush();
+                    cursor = page.nextCursor();
+                } while (cursor != null);
+            }
+        };
+
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // Server-Sent Events com cada escrita depois de since. Na reconexão o EventSource manda o id
+    // do último evento recebido em Last-Event-ID, que vale mais que o since da URL original
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestParam(value = "since", required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Long after = since;
+        if (lastEventId != null) {
+            try {
+                after = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        var emitter = changeFeed.subscribe(after);
+        if (emitter == null)
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .build();
+        return ResponseEntity.ok(emitter);
+    }
+
+    @PutMapping("/{id}")
+    @Override
+    public ResponseEntity<ResponseModel> updateUser(Long id, String ifMatch, UserModel userModel) {
+        // existência, versão, email e telefone repetidos são resolvidos pelo próprio UPDATE na service
+        User userToUpdate = toUser(userModel);
+        userToUpdate.setId(id);
+
+        try {
+            userToUpdate.setVersion(VersionETag.parse(ifMatch));
             var response = service.updateUser(userToUpdate);
 
-            //novamente, improvável cair aqui, mas to deixando só por precaução
             if (response == null)
-                return ResponseEntity
-                        .badRequest()
-                        .body(new ResponseModel()
-                                .addErrorsItem("Usuário não foi ajustado!!")
-                        );
-            else return ResponseEntity
-                    .ok(new ResponseModel()
-                            .addDataItem(response)
-                    );
+                return notFound("User not found with ID: " + id);
+            else return written(response);
 
+        } catch (UserVersionMismatchException e) {
+            return preconditionFailed(e);
+        } catch (UserAlreadyExistsException e) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new ResponseModel()
+                            .addErrorsItem(e.getMessage())
+                    );
         } catch (Exception e) {
+            return failed(e);
+        }
+    }
+
+    @PatchMapping("/{id}")
+    @Override
+    public ResponseEntity<ResponseModel> patchUser(Long id, String ifMatch, UserPatchModel userPatchModel) {
+        try {
+            var response = service.patchUser(id, toPatch(userPatchModel), VersionETag.parse(ifMatch));
+
+            if (response == null)
+                return notFound("User not found with ID: " + id);
+            else return written(response);
+
+        } catch (UserVersionMismatchException e) {
+            return preconditionFailed(e);
+        } catch (UserAlreadyExistsException e) {
             return ResponseEntity
                     .badRequest()
                     .body(new ResponseModel()
-                            .addErrorsItem("Um Erro ocorreu ao processar a request: " + e.getMessage())
+                            .addErrorsItem(e.getMessage())
                     );
+        } catch (Exception e) {
+            return failed(e);
         }
     }
-}
\ No newline at end of file
+
+    // A ETag da nova versão vai junto quando ela é conhecida, para o próximo If-Match
+    private static ResponseEntity<ResponseModel> written(User user) {
+        var response = ResponseEntity.ok();
+        if (user.getVersion() != null)
+            response.eTag(VersionETag.of(user.getVersion()));
+        return response.body(new ResponseModel()
+                .addDataItem(user)
+        );
+    }
+
+    // Também 400, como os erros de validação, mas contado à parte nas métricas
+    private static ResponseEntity<ResponseModel> notFound(String message) {
+        ApiMetrics.outcome(EApiOutcome.NOT_FOUND);
+        return ResponseEntity
+                .badRequest()
+                .body(new ResponseModel()
+                        .addErrorsItem(message)
+                );
+    }
+
+    // Dados inválidos também chegam aqui: nas métricas eles contam como erro do cliente
+    private static ResponseEntity<ResponseModel> failed(Exception e) {
+        ApiMetrics.outcome(ApiMetrics.outcomeOf(e));
+        return ResponseEntity
+                .badRequest()
+                .body(new ResponseModel()
+                        .addErrorsItem("Um Erro ocorreu ao processar a request: " + e.getMessage())
+                );
+    }
+
+    private static ResponseEntity<ResponseModel> preconditionFailed(UserVersionMismatchException e) {
+        return ResponseEntity
+                .status(HttpStatus.PRECONDITION_FAILED)
+                .body(new ResponseModel()
+                        .addErrorsItem(e.getMessage())
+                );
+    }
+
+    // 304 sem corpo se o cliente já tem esta versão, senão os bytes já serializados
+    private static ResponseEntity<ResponseModel> cached(SerializedResponse response, String ifNoneMatch) {
+        if (response.matches(ifNoneMatch))
+            return ResponseEntity
+                    .status(HttpStatus.NOT_MODIFIED)
+                    .eTag(response.getEtag())
+                    .build();
+
+        return ResponseEntity
+                .ok()
+                .eTag(response.getEtag())
+                .body(response);
+    }
+
+    private static UserFilter toFilter(String userType, LocalDate birthDateFrom, LocalDate birthDateTo,
+                                       String fullNamePrefix, String sort, String direction) {
+        return new UserFilter(
+                userType == null ? null : EUserType.valueOf(userType),
+                birthDateFrom,
+                birthDateTo,
+                fullNamePrefix,
+                sort == null ? null : EUserSortField.fromValue(sort),
+                direction == null ? null : Sort.Direction.fromString(direction)
+        );
+    }
+
+    private static User toUser(UserModel userModel) {
+        return User.builder()
+                .fullName(userModel.getFullName())
+                .email(userModel.getEmail())
+                .phone(PhoneNormalizer.normalize(userModel.getPhone()))
+                .birthDate(userModel.getBirthDate())
+                .userType(userModel.getUserType() == null ? null : EUserType.valueOf(userModel.getUserType().getValue()))
+                .build();
+    }
+
+    // Só os campos presentes no JSON, inclusive os enviados como null
+    private static UserPatch toPatch(UserPatchModel model) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (model != null) {
+            putIfPresent(changes, UserPatch.FULL_NAME, model.getFullName(), Function.identity());
+            putIfPresent(changes, UserPatch.EMAIL, model.getEmail(), Function.identity());
+            putIfPresent(changes, UserPatch.PHONE, model.getPhone(), PhoneNormalizer::normalize);
+            putIfPresent(changes, UserPatch.BIRTH_DATE, model.getBirthDate(), Function.identity());
+            putIfPresent(changes, UserPatch.USER_TYPE, model.getUserType(), type -> EUserType.valueOf(type.getValue()));
+        }
+        return new UserPatch(changes);
+    }
+
+    private static <T> void putIfPresent(Map<String, Object> changes, String field, JsonNullable<T> value,
+                                         Function<T, ?> convert) {
+        if (value != null && value.isPresent())
+            changes.put(field, value.get() == null ? null : convert.apply(value.get()));
+    }
+}
@@ -0,0 +1,21 @@
+package matheus_henrique.TechManage.Enums;
+
+import lombok.Getter;
+
+@Getter
+public enum EApiOutcome {
+    OK("ok"),
+
+    VALIDATION_ERROR("validation_error"),
+
+    NOT_FOUND("not_found"),
+
+    EXCEPTION("exception");
+
+    // valor da tag outcome nas métricas
+    private String value;
+
+    EApiOutcome(String value) {
+        this.value = value;
+    }
+}
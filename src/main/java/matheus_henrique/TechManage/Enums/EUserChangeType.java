@@ -0,0 +1,9 @@
+package matheus_henrique.TechManage.Enums;
+
+public enum EUserChangeType {
+    CREATED,
+
+    UPDATED,
+
+    DELETED
+}
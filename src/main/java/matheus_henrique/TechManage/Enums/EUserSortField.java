@@ -0,0 +1,27 @@
+package matheus_henrique.TechManage.Enums;
+
+import lombok.Getter;
+
+@Getter
+public enum EUserSortField {
+    ID("id"),
+
+    FULL_NAME("fullName"),
+
+    BIRTH_DATE("birthDate");
+
+    // nome do atributo na entidade User, igual ao valor aceito pela API
+    private String value;
+
+    EUserSortField(String value) {
+        this.value = value;
+    }
+
+    public static EUserSortField fromValue(String value) {
+        for (EUserSortField field : values()) {
+            if (field.value.equals(value))
+                return field;
+        }
+        throw new IllegalArgumentException("Campo de ordenação inválido: " + value);
+    }
+}
@@ -0,0 +1,40 @@
+package matheus_henrique.TechManage.Exceptions;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+// Escrita barrada por uma constraint unique de users, com a mesma mensagem de sempre da API
+public class UserAlreadyExistsException extends RuntimeException {
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+    public static final String PHONE_CONSTRAINT = "uk_users_phone";
+
+    public static final String EMAIL_MESSAGE = "Email já existe no banco de dados!";
+    public static final String PHONE_MESSAGE = "Telefone já existe no banco de dados!";
+
+    public UserAlreadyExistsException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    // null quando a constraint violada não é de email nem de telefone
+    public static UserAlreadyExistsException from(DataIntegrityViolationException e) {
+        String constraint = violatedConstraint(e);
+        if (constraint == null)
+            return null;
+
+        constraint = constraint.toLowerCase();
+        if (constraint.contains(EMAIL_CONSTRAINT))
+            return new UserAlreadyExistsException(EMAIL_MESSAGE, e);
+        if (constraint.contains(PHONE_CONSTRAINT))
+            return new UserAlreadyExistsException(PHONE_MESSAGE, e);
+        return null;
+    }
+
+    private static String violatedConstraint(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null)
+                return violation.getConstraintName();
+        }
+        // o dialeto nem sempre extrai o nome, mas ele sempre aparece na mensagem do driver
+        return e.getMostSpecificCause().getMessage();
+    }
+}
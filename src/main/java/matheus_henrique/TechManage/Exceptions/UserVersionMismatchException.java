@@ -0,0 +1,10 @@
+package matheus_henrique.TechManage.Exceptions;
+
+// Escrita com If-Match num usuário que já não está na versão que o cliente leu
+public class UserVersionMismatchException extends RuntimeException {
+    public static final String MESSAGE = "O usuário foi alterado desde a versão enviada no If-Match!";
+
+    public UserVersionMismatchException() {
+        super(MESSAGE);
+    }
+}
@@ -0,0 +1,85 @@
+package matheus_henrique.TechManage.Infra;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolationException;
+import matheus_henrique.TechManage.Enums.EApiOutcome;
+import matheus_henrique.TechManage.Exceptions.UserAlreadyExistsException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// users.api.requests por método do controller e resultado. O resultado vem do status, a não ser
+// que o controller o marque (usuário não encontrado também é 400); usuário inválido e email ou
+// telefone repetido são erro do cliente mesmo chegando como exceção, então exception só conta
+// falhas da própria API. O histograma tem buckets fixos e os percentis ficam com o Prometheus
+@Component
+public class ApiMetrics implements AsyncHandlerInterceptor {
+    public static final String NAME = "users.api.requests";
+    private static final String START = ApiMetrics.class.getName() + ".start";
+    private static final String OUTCOME = ApiMetrics.class.getName() + ".outcome";
+
+    private final MeterRegistry registry;
+
+    public ApiMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // Marca o resultado da request atual; fora de uma request (testes unitários) não faz nada
+    public static void outcome(EApiOutcome outcome) {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null)
+            attributes.setAttribute(OUTCOME, outcome, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    public static EApiOutcome outcomeOf(Exception e) {
+        return e instanceof ConstraintViolationException || e instanceof UserAlreadyExistsException
+                ? EApiOutcome.VALIDATION_ERROR
+                : EApiOutcome.EXCEPTION;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // no dispatch assíncrono do streaming o início continua sendo o da primeira passagem
+        if (request.getAttribute(START) == null)
+            request.setAttribute(START, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod method) || !(request.getAttribute(START) instanceof Long start))
+            return;
+
+        var outcome = ex != null ? outcomeOf(ex) : (EApiOutcome) request.getAttribute(OUTCOME);
+        if (outcome == null)
+            outcome = fromStatus(response.getStatus());
+
+        Timer.builder(NAME)
+                .description("Operações da API de usuários")
+                .tag("operation", method.getMethod().getName())
+                .tag("outcome", outcome.getValue())
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static EApiOutcome fromStatus(int status) {
+        if (status < 400)
+            return EApiOutcome.OK;
+        if (status == 404)
+            return EApiOutcome.NOT_FOUND;
+        if (status >= 500)
+            return EApiOutcome.EXCEPTION;
+        return EApiOutcome.VALIDATION_ERROR;
+    }
+}
@@ -0,0 +1,55 @@
+package matheus_henrique.TechManage.Infra;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+// Carga na própria thread para um AsyncCache do Caffeine. O cache síncrono roda o loader dentro
+// do ConcurrentHashMap.compute, segurando um synchronized durante a consulta ao banco (e prendendo
+// a carrier de uma thread virtual); aqui o lock só cobre inserir um future vazio, e quem o inseriu
+// carrega. Invalidar a chave remove o future mesmo durante a carga: o valor lido antes de uma
+// escrita vai para quem já esperava por ele, mas nunca fica no cache. Null e falhas também não
+final class AsyncCaches {
+    private AsyncCaches() {
+    }
+
+    static <K, V> V get(AsyncCache<K, V> cache, K key, Function<K, V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> future = cache.get(key, (k, executor) -> mine);
+        if (future != mine)
+            return join(future);
+
+        try {
+            V value = loader.apply(key);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    // Igual ao get, para várias chaves: o loader recebe só as que faltam no cache e
+    // as que ele não devolver ficam de fora do resultado (e do cache)
+    static <K, V> Map<K, V> getAll(AsyncCache<K, V> cache, Collection<? extends K> keys,
+                                   Function<Set<? extends K>, Map<K, V>> loader) {
+        return join(cache.getAll(keys, (missing, executor) -> CompletableFuture.completedFuture(loader.apply(missing))));
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error cause)
+                throw cause;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package matheus_henrique.TechManage.Infra;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sem locks. mightContain nunca responde false para um valor que passou por put; para um valor
+// ausente erra com a probabilidade dimensionada enquanto não passar dos valores esperados
+final class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final long capacity;
+    // valores que mudaram algum bit, uma boa aproximação dos valores distintos
+    private final LongAdder entries = new LongAdder();
+
+    BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        capacity = Math.max(1, expectedInsertions);
+        long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+        words = new AtomicLongArray(wordCount);
+        bits = wordCount * 64L;
+        hashes = Math.max(1, (int) Math.round((double) bits / capacity * Math.log(2)));
+    }
+
+    void put(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash + 0x9E3779B97F4A7C15L) | 1;
+
+        boolean changed = false;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            long current = words.get(word);
+            while ((current & mask) == 0) {
+                long witness = words.compareAndExchange(word, current, current | mask);
+                if (witness == current) {
+                    changed = true;
+                    break;
+                }
+                current = witness;
+            }
+        }
+        if (changed)
+            entries.increment();
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash + 0x9E3779B97F4A7C15L) | 1;
+
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    long entries() {
+        return entries.sum();
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    long bitSize() {
+        return bits;
+    }
+
+    // Probabilidade de falso positivo com os valores que o filtro tem agora
+    double expectedFalsePositiveProbability() {
+        return Math.pow(1 - Math.exp(-hashes * (double) entries() / bits), hashes);
+    }
+
+    // FNV-1a de 64 bits sobre os chars
+    private static long hash(String value) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    // finalizador do MurmurHash3, espalha os bits antes do double hashing
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+}
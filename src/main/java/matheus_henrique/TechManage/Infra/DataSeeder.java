@@ -0,0 +1,152 @@
+package matheus_henrique.TechManage.Infra;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Models.User;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import matheus_henrique.TechManage.Models.UserView;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Carga dos usuários de exemplo numa thread própria depois da subida; o health "dataSeeder" faz
+// parte do readiness e fica OUT_OF_SERVICE até ela terminar. Lê a mock API (ou o UsersFallback.json)
+// como stream e insere em batches, uma transação por bloco. Não carrega nada se a tabela já tem usuários
+@Slf4j
+public class DataSeeder implements ApplicationRunner, HealthIndicator {
+    // usuários por transação (e por UserChangedEvent)
+    static final int CHUNK_SIZE = 10_000;
+    static final String FALLBACK = "UsersFallback.json";
+
+    private final UserRepository repository;
+    private final ObjectMapper objectMapper;
+    private final RestTemplate restTemplate;
+    private final ApplicationEventPublisher events;
+    private final boolean enabled;
+    private final URI remote;
+    private final CompletableFuture<Integer> done = new CompletableFuture<>();
+    // só usado pela thread da carga
+    private int inserted;
+
+    // remote null: só o arquivo de fallback
+    public DataSeeder(UserRepository repository, ObjectMapper objectMapper, RestTemplate restTemplate,
+                      ApplicationEventPublisher events, boolean enabled, URI remote) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.restTemplate = restTemplate;
+        this.events = events;
+        this.enabled = enabled;
+        this.remote = remote;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            done.complete(0);
+            return;
+        }
+
+        Thread.ofPlatform()
+                .name("data-seeder")
+                .daemon()
+                .start(this::seed);
+    }
+
+    // Total de usuários inseridos, quando a carga termina
+    public CompletableFuture<Integer> done() {
+        return done;
+    }
+
+    @Override
+    public Health health() {
+        if (!done.isDone())
+            return Health.outOfService().withDetail("seed", "em andamento").build();
+        if (done.isCompletedExceptionally())
+            return Health.down().withException(done.exceptionNow()).build();
+        return Health.up().withDetail("users", done.resultNow()).build();
+    }
+
+    void seed() {
+        try {
+            // com o banco em arquivo os usuários de uma execução anterior continuam lá
+            if (repository.count() > 0) {
+                log.info("O banco já tem usuários, a carga de exemplo não é necessária");
+                done.complete(0);
+                return;
+            }
+
+            log.info("Carregando os usuários de exemplo");
+            if (!seedFromRemote())
+                seedFromFallback();
+
+            log.info("{} usuários de exemplo carregados", inserted);
+            done.complete(inserted);
+        } catch (Exception e) {
+            log.error("Erro ao carregar os usuários de exemplo", e);
+            done.completeExceptionally(e);
+        }
+    }
+
+    // false quando a API não foi usada ou falhou antes de inserir algo, para usar o arquivo
+    private boolean seedFromRemote() {
+        if (remote == null)
+            return false;
+
+        try {
+            restTemplate.execute(remote, HttpMethod.GET, null, response -> {
+                insert(response.getBody());
+                return null;
+            });
+            return true;
+        } catch (Exception e) {
+            // com parte da API já no banco, usar o arquivo geraria duplicados
+            if (inserted > 0)
+                throw new IllegalStateException("A API de mock falhou depois de " + inserted + " usuários", e);
+
+            log.warn("API de mock indisponível ({}), usando {}", e.getMessage(), FALLBACK);
+            return false;
+        }
+    }
+
+    private void seedFromFallback() throws IOException {
+        try (InputStream in = DataSeeder.class.getClassLoader().getResourceAsStream(FALLBACK)) {
+            if (in == null)
+                throw new IOException(FALLBACK + " não encontrado no classpath");
+            insert(in);
+        }
+    }
+
+    // Lê um array JSON de usuários sem carregá-lo inteiro, inserindo a cada CHUNK_SIZE
+    private void insert(InputStream in) throws IOException {
+        try (MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(in)) {
+            List<User> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (users.hasNext()) {
+                chunk.add(users.next());
+                if (chunk.size() == CHUNK_SIZE) {
+                    insertChunk(chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty())
+                insertChunk(chunk);
+        }
+    }
+
+    private void insertChunk(List<User> chunk) {
+        inserted += repository.insertInBatches(chunk);
+        events.publishEvent(UserChangedEvent.created(chunk.stream().map(UserView::of).toList()));
+    }
+}
@@ -0,0 +1,14 @@
+package matheus_henrique.TechManage.Infra;
+
+import org.openapitools.jackson.nullable.JsonNullableModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+    // Registrado no ObjectMapper do Spring: diferencia campo ausente de campo null no PATCH
+    @Bean
+    public JsonNullableModule jsonNullableModule() {
+        return new JsonNullableModule();
+    }
+}
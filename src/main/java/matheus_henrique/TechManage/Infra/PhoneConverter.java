@@ -0,0 +1,20 @@
+package matheus_henrique.TechManage.Infra;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Aplicado pelo Hibernate em toda escrita (persist, batches, updates JPQL/Criteria) e nos parâmetros
+// comparados com a coluna: o índice unique de phone só tem telefones normalizados, e a busca com um
+// telefone formatado continua usando o índice
+@Converter
+public class PhoneConverter implements AttributeConverter<String, String> {
+    @Override
+    public String convertToDatabaseColumn(String phone) {
+        return PhoneNormalizer.normalize(phone);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String phone) {
+        return phone;
+    }
+}
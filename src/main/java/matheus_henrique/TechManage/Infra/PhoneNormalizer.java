@@ -0,0 +1,34 @@
+package matheus_henrique.TechManage.Infra;
+
+// Tira espaços, hífens, parênteses e dois-pontos do telefone numa passada só;
+// um telefone já normalizado volta sem cópia
+public final class PhoneNormalizer {
+    private PhoneNormalizer() {
+    }
+
+    public static String normalize(String phone) {
+        if (phone == null)
+            return null;
+
+        int length = phone.length();
+        int first = 0;
+        while (first < length && !isFormatting(phone.charAt(first)))
+            first++;
+        if (first == length)
+            return phone;
+
+        char[] normalized = new char[length - 1];
+        phone.getChars(0, first, normalized, 0);
+        int size = first;
+        for (int i = first + 1; i < length; i++) {
+            char c = phone.charAt(i);
+            if (!isFormatting(c))
+                normalized[size++] = c;
+        }
+        return new String(normalized, 0, size);
+    }
+
+    private static boolean isFormatting(char c) {
+        return c == ' ' || c == '-' || c == '(' || c == ')' || c == ':';
+    }
+}
@@ -1,11 +1,54 @@
 package matheus_henrique.TechManage.Infra.Repository;
 
 import matheus_henrique.TechManage.Models.User;
+import matheus_henrique.TechManage.Models.UserView;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+    // Leitura sem entidade gerenciada, para os GETs da API
+    @Transactional(readOnly = true)
+    @Query("select " + UserView.SELECT + " from User u where u.id = :id")
+    Optional<UserView> findViewById(long id);
+    @Transactional(readOnly = true)
+    @Query("select " + UserView.SELECT + " from User u where u.id in :ids")
+    List<UserView> findViewsByIdIn(Collection<Long> ids);
+    // Pelo índice de lower(email); emails que só mudam nas maiúsculas podem ser de usuários diferentes
+    @Transactional(readOnly = true)
+    @Query("select " + UserView.SELECT + " from User u where u.emailLower = lower(:email) order by u.id")
+    List<UserView> findViewsByEmailIgnoreCase(String email);
+    // Pelo índice unique de phone, o parâmetro passa pelo PhoneConverter como a coluna
+    @Transactional(readOnly = true)
+    @Query("select " + UserView.SELECT + " from User u where u.phone = :phone")
+    Optional<UserView> findViewByPhone(String phone);
+
     User findByEmail(String email);
     User findByPhone(String phone);
-}
\ No newline at end of file
+
+    // Só para checar existência: select limitado a 1 linha, sem montar a entidade
+    boolean existsByEmail(String email);
+    boolean existsByPhone(String phone);
+
+    @Query("select u.email from User u where u.email in :emails")
+    List<String> findExistingEmails(Collection<String> emails);
+    @Query("select u.phone from User u where u.phone in :phones")
+    List<String> findExistingPhones(Collection<String> phones);
+    // id, email e telefone em ordem de id, para varrer a tabela sem montar as entidades
+    @Query("select u.id, u.email, u.phone from User u where u.id > :after order by u.id")
+    List<Object[]> findUniqueKeysAfter(long after, Limit limit);
+    // id, nome e email em ordem de id, para montar o índice de busca
+    @Query("select u.id, u.fullName, u.email from User u where u.id > :after order by u.id")
+    List<Object[]> findSearchKeysAfter(long after, Limit limit);
+    // id, tipo e data de nascimento em ordem de id, para carregar as estatísticas
+    @Query("select u.id, u.userType, u.birthDate from User u where u.id > :after order by u.id")
+    List<Object[]> findStatsKeysAfter(long after, Limit limit);
+
+}
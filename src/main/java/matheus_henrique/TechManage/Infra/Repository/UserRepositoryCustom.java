@@ -0,0 +1,32 @@
+package matheus_henrique.TechManage.Infra.Repository;
+
+import matheus_henrique.TechManage.Enums.EUserType;
+import matheus_henrique.TechManage.Models.User;
+import matheus_henrique.TechManage.Models.UserCursor;
+import matheus_henrique.TechManage.Models.UserFilter;
+import matheus_henrique.TechManage.Models.UserPatch;
+import matheus_henrique.TechManage.Models.UserView;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+    // Página por keyset depois de after (null na primeira), na ordem do filtro
+    List<UserView> findPage(UserFilter filter, UserCursor after, int limit);
+
+    // Flush e clear a cada batch, para a memória não crescer com o tamanho do lote.
+    // Os ids gerados ficam nas próprias instâncias
+    int insertInBatches(Iterable<User> users);
+
+    // Escritas sem carregar a entidade. Antes, a linha é lida com select ... for update na mesma
+    // transação e devolvida como estava; vazio quando o usuário não existe ou, com version, está em
+    // outra versão. Os updates sempre incrementam a versão
+    Optional<UserView> updateById(long id, String fullName, String email, String phone, LocalDate birthDate,
+                                  EUserType userType, Long version);
+
+    // Só as colunas do patch
+    Optional<UserView> updateFields(long id, UserPatch patch, Long version);
+
+    Optional<UserView> deleteRowById(long id, Long version);
+}
@@ -0,0 +1,172 @@
+package matheus_henrique.TechManage.Infra.Repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import matheus_henrique.TechManage.Enums.EUserSortField;
+import matheus_henrique.TechManage.Enums.EUserType;
+import matheus_henrique.TechManage.Models.User;
+import matheus_henrique.TechManage.Models.UserCursor;
+import matheus_henrique.TechManage.Models.UserFilter;
+import matheus_henrique.TechManage.Models.UserPatch;
+import matheus_henrique.TechManage.Models.UserView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserView> findPage(UserFilter filter, UserCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserView> query = cb.createQuery(UserView.class);
+        Root<User> user = query.from(User.class);
+        query.select(cb.construct(UserView.class, user.get("id"), user.get("fullName"), user.get("email"),
+                user.get("phone"), user.get("birthDate"), user.get("userType"), user.get("version")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.userType() != null)
+            predicates.add(cb.equal(user.get("userType"), filter.userType()));
+        if (filter.birthDateFrom() != null)
+            predicates.add(cb.greaterThanOrEqualTo(user.get("birthDate"), filter.birthDateFrom()));
+        if (filter.birthDateTo() != null)
+            predicates.add(cb.lessThanOrEqualTo(user.get("birthDate"), filter.birthDateTo()));
+        if (filter.fullNamePrefix() != null && !filter.fullNamePrefix().isEmpty())
+            predicates.add(cb.like(user.get("fullName"), escapeLike(filter.fullNamePrefix()) + "%", '\\'));
+        if (after != null)
+            predicates.add(keyset(cb, user, filter, after));
+
+        boolean ascending = filter.direction().isAscending();
+        List<Order> orders = new ArrayList<>(2);
+        if (filter.sortBy() != EUserSortField.ID) {
+            Path<Object> field = user.get(filter.sortBy().getValue());
+            orders.add(ascending ? cb.asc(field) : cb.desc(field));
+        }
+        orders.add(ascending ? cb.asc(user.get("id")) : cb.desc(user.get("id")));
+
+        query.where(predicates.toArray(Predicate[]::new)).orderBy(orders);
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional
+    public int insertInBatches(Iterable<User> users) {
+        int count = 0;
+        for (User user : users) {
+            entityManager.persist(user);
+
+            if (++count % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        return count;
+    }
+
+    @Override
+    @Transactional
+    public Optional<UserView> updateById(long id, String fullName, String email, String phone, LocalDate birthDate,
+                                         EUserType userType, Long version) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put(UserPatch.FULL_NAME, fullName);
+        changes.put(UserPatch.EMAIL, email);
+        changes.put(UserPatch.PHONE, phone);
+        changes.put(UserPatch.BIRTH_DATE, birthDate);
+        changes.put(UserPatch.USER_TYPE, userType);
+        return updateFields(id, new UserPatch(changes), version);
+    }
+
+    @Override
+    @Transactional
+    public Optional<UserView> updateFields(long id, UserPatch patch, Long version) {
+        Optional<UserView> previous = lockedView(id, version);
+        if (previous.isEmpty())
+            return previous;
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = cb.createCriteriaUpdate(User.class);
+        Root<User> user = update.from(User.class);
+        Path<Long> currentVersion = user.get("version");
+
+        patch.changes().forEach(update::set);
+        update.set(currentVersion, cb.sum(currentVersion, 1L));
+        update.where(cb.equal(user.get("id"), id));
+
+        entityManager.createQuery(update).executeUpdate();
+        // nenhuma instância já carregada nesta sessão pode ficar com os valores antigos
+        entityManager.clear();
+        return previous;
+    }
+
+    @Override
+    @Transactional
+    public Optional<UserView> deleteRowById(long id, Long version) {
+        Optional<UserView> previous = lockedView(id, version);
+        if (previous.isEmpty())
+            return previous;
+
+        entityManager.createQuery("delete from User u where u.id = :id")
+                .setParameter("id", id)
+                .executeUpdate();
+        entityManager.clear();
+        return previous;
+    }
+
+    // A linha como está antes da escrita, travada (select ... for update) até o fim da transação:
+    // nenhuma outra escrita no usuário entra entre esta leitura e o UPDATE/DELETE por id que vem depois.
+    // Vazio quando o usuário não existe ou, com version, está em outra versão, e aí não há o que escrever
+    private Optional<UserView> lockedView(long id, Long version) {
+        String where = version == null ? " where u.id = :id" : " where u.id = :id and u.version = :version";
+        TypedQuery<UserView> query = entityManager.createQuery("select " + UserView.SELECT + " from User u" + where,
+                        UserView.class)
+                .setParameter("id", id)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        if (version != null)
+            query.setParameter("version", version);
+        return query.getResultStream().findFirst();
+    }
+
+    // Condição "vem depois do cursor" na ordem pedida: (campo, id) > (campo do cursor, id do cursor),
+    // só com os valores que o cursor traz, sem ler de novo o usuário dele (que pode nem existir mais)
+    @SuppressWarnings("unchecked")
+    private <T extends Comparable<? super T>> Predicate keyset(CriteriaBuilder cb, Root<User> user, UserFilter filter,
+                                                              UserCursor after) {
+        Path<Long> id = user.get("id");
+        boolean ascending = filter.direction().isAscending();
+        Predicate idAfter = ascending ? cb.greaterThan(id, after.id()) : cb.lessThan(id, after.id());
+
+        if (filter.sortBy() == EUserSortField.ID)
+            return idAfter;
+
+        T anchor = (T) after.value();
+
+        Path<T> field = user.get(filter.sortBy().getValue());
+        return cb.or(
+                ascending ? cb.greaterThan(field, anchor) : cb.lessThan(field, anchor),
+                cb.and(cb.equal(field, anchor), idAfter)
+        );
+    }
+
+    private static String escapeLike(String value) {
+        return value
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
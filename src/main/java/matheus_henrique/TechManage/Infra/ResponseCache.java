@@ -0,0 +1,144 @@
+package matheus_henrique.TechManage.Infra;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import gen.model.ResponseModel;
+import gen.model.UserModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import matheus_henrique.TechManage.Enums.EUserChangeType;
+import matheus_henrique.TechManage.Models.SerializedResponse;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import matheus_henrique.TechManage.Models.UserFilter;
+import matheus_henrique.TechManage.Models.UserView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+// JSON pronto de GET /api/users/{id} e das páginas, limitado pelo total de bytes.
+// Usuário: chave pelo id, removida (com a carga em andamento, como no UserCache) a cada evento dele.
+// Página: qualquer escrita pode mudá-la, então a chave leva uma geração que todo evento incrementa.
+// A página lida antes de uma escrita fica na geração antiga, que ninguém mais pede, até sair pelo
+// tamanho ou pelo tempo: uma escrita custa o mesmo com qualquer número de páginas guardadas
+@Component
+public class ResponseCache implements MeterBinder {
+    public static final String NAME = "responses";
+
+    private record PageKey(long generation, UserFilter filter, String after, Integer limit) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final AsyncCache<Object, SerializedResponse> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ResponseCache(ObjectMapper objectMapper,
+                         @Value("${techmanage.cache.responses.enabled:true}") boolean enabled,
+                         @Value("${techmanage.cache.responses.maximum-size:64MB}") DataSize maximumSize,
+                         @Value("${techmanage.cache.responses.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .<Object, SerializedResponse>weigher((key, response) -> response.getJson().length)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+    public SerializedResponse user(long id, LongFunction<UserView> loader) {
+        if (!enabled)
+            return serialize(loader.apply(id));
+
+        return AsyncCaches.get(cache, id, key -> serialize(loader.apply(id)));
+    }
+
+    // Os ids que já estão no cache vêm de lá; os outros são lidos juntos pelo loader e
+    // guardados como se tivessem passado pelo GET /api/users/{id}. Ids que não existem ficam de fora
+    public Map<Long, UserModel> users(Collection<Long> ids, Function<Collection<Long>, Map<Long, UserView>> loader) {
+        Map<Long, UserModel> users = new HashMap<>();
+        if (!enabled) {
+            loader.apply(ids).forEach((id, user) -> users.put(id, user.toModel()));
+            return users;
+        }
+
+        var responses = AsyncCaches.getAll(cache, ids, missing -> {
+            Map<Object, SerializedResponse> loaded = new HashMap<>();
+            loader.apply(missing.stream().map(Long.class::cast).toList())
+                    .forEach((id, user) -> loaded.put(id, serialize(user)));
+            return loaded;
+        });
+        responses.forEach((id, response) -> users.put((Long) id, (UserModel) response.getData().get(0)));
+        return users;
+    }
+
+    public SerializedResponse page(UserFilter filter, String after, Integer limit, Supplier<ResponseModel> loader) {
+        if (!enabled)
+            return serialize(loader.get());
+
+        // a geração é lida antes da consulta ao banco
+        var key = new PageKey(generation.get(), filter, after, limit);
+        return AsyncCaches.get(cache, key, k -> serialize(loader.get()));
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        generation.incrementAndGet();
+
+        if (event.type() != EUserChangeType.CREATED)
+            cache.synchronous().invalidateAll(event.ids());
+    }
+
+    // Para escritas que não passam pela UserService (carga inicial, scripts no banco)
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.synchronous().invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), NAME);
+    }
+
+    private SerializedResponse serialize(UserView user) {
+        if (user == null)
+            return null;
+
+        var model = new ResponseModel().addDataItem(user.toModel());
+        return new SerializedResponse(model, toJson(model), VersionETag.of(user.version()));
+    }
+
+    private SerializedResponse serialize(ResponseModel model) {
+        if (model == null)
+            return null;
+
+        return new SerializedResponse(model, toJson(model));
+    }
+
+    private byte[] toJson(ResponseModel model) {
+        try {
+            return objectMapper.writeValueAsBytes(model);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
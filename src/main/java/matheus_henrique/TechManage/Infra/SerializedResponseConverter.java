@@ -0,0 +1,44 @@
+package matheus_henrique.TechManage.Infra;
+
+import matheus_henrique.TechManage.Models.SerializedResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+// Registrado antes do conversor do Jackson pelo Spring Boot, por ser um bean
+@Component
+public class SerializedResponseConverter extends AbstractHttpMessageConverter<SerializedResponse> {
+    public SerializedResponseConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return SerializedResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected SerializedResponse readInternal(Class<? extends SerializedResponse> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("SerializedResponse é somente para escrita", inputMessage);
+    }
+
+    @Override
+    protected Long getContentLength(SerializedResponse response, MediaType contentType) {
+        return (long) response.getJson().length;
+    }
+
+    @Override
+    protected void writeInternal(SerializedResponse response, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(response.getJson());
+    }
+}
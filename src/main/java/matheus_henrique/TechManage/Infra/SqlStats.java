@@ -0,0 +1,55 @@
+package matheus_henrique.TechManage.Infra;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// Statements da request atual: quantos, tempo no banco e quantas vezes cada SQL foi preparado
+// (um N+1 aparece como um SQL com contagem alta). Só a thread da request mexe nele; o que roda
+// fora dela não é contado
+public final class SqlStats {
+    private static final ThreadLocal<SqlStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long databaseNanos;
+    private final Map<String, Integer> prepared = new HashMap<>();
+
+    static SqlStats begin() {
+        var stats = new SqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    // null fora de uma request
+    static SqlStats current() {
+        return CURRENT.get();
+    }
+
+    void prepared(String sql) {
+        prepared.merge(sql, 1, Integer::sum);
+    }
+
+    void executed(long nanos) {
+        statements++;
+        databaseNanos += nanos;
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public Duration databaseTime() {
+        return Duration.ofNanos(databaseNanos);
+    }
+
+    // O SQL preparado mais vezes, ou null se nenhum foi
+    public Map.Entry<String, Integer> mostRepeated() {
+        return prepared.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+    }
+}
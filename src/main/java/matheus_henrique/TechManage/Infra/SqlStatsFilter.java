@@ -0,0 +1,132 @@
+package matheus_henrique.TechManage.Infra;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+
+import static net.logstash.logback.argument.StructuredArguments.kv;
+
+// Avisa no log a request que passa dos limites de statements, de repetições do mesmo SQL ou de tempo.
+// Com expose-headers os números vão nos headers, escritos quando o corpo começa (depois disso a
+// resposta já foi enviada)
+@Slf4j
+@Component
+public class SqlStatsFilter extends OncePerRequestFilter {
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    public static final String TIME_HEADER = "X-SQL-Time";
+
+    private final int maxStatements;
+    private final int maxRepeated;
+    private final Duration slowRequest;
+    private final boolean exposeHeaders;
+
+    public SqlStatsFilter(@Value("${techmanage.sql-stats.max-statements:20}") int maxStatements,
+                          @Value("${techmanage.sql-stats.max-repeated-statement:5}") int maxRepeated,
+                          @Value("${techmanage.sql-stats.slow-request:500ms}") Duration slowRequest,
+                          @Value("${techmanage.sql-stats.expose-headers:false}") boolean exposeHeaders) {
+        this.maxStatements = maxStatements;
+        this.maxRepeated = maxRepeated;
+        this.slowRequest = slowRequest;
+        this.exposeHeaders = exposeHeaders;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        var stats = SqlStats.begin();
+        try {
+            chain.doFilter(request, exposeHeaders ? new HeadersOnCommit(response, stats) : response);
+        } finally {
+            SqlStats.end();
+            if (exposeHeaders && !response.isCommitted())
+                writeHeaders(response, stats);
+            check(request, stats, Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private void check(HttpServletRequest request, SqlStats stats, Duration elapsed) {
+        var repeated = stats.mostRepeated();
+        boolean tooMany = stats.statements() > maxStatements;
+        boolean nPlusOne = repeated != null && repeated.getValue() > maxRepeated;
+        boolean slow = elapsed.compareTo(slowRequest) > 0;
+        if (!tooMany && !nPlusOne && !slow)
+            return;
+
+        // campos próprios no log JSON, key=value na mensagem
+        log.warn("Request acima dos limites de SQL: {} {} {} {} {} {} {}",
+                kv("method", request.getMethod()), kv("uri", request.getRequestURI()),
+                kv("statements", stats.statements()), kv("dbTimeMs", stats.databaseTime().toMillis()),
+                kv("durationMs", elapsed.toMillis()), kv("repeatedSql", repeated == null ? "" : repeated.getKey()),
+                kv("repeatedCount", repeated == null ? 0 : repeated.getValue()));
+    }
+
+    private static void writeHeaders(HttpServletResponse response, SqlStats stats) {
+        response.setHeader(STATEMENTS_HEADER, String.valueOf(stats.statements()));
+        response.setHeader(TIME_HEADER, String.format("%.3fms", stats.databaseTime().toNanos() / 1_000_000.0));
+    }
+
+    // Escreve os headers uma vez, logo antes do primeiro byte do corpo
+    private static class HeadersOnCommit extends HttpServletResponseWrapper {
+        private final SqlStats stats;
+        private boolean written;
+
+        HeadersOnCommit(HttpServletResponse response, SqlStats stats) {
+            super(response);
+            this.stats = stats;
+        }
+
+        private void beforeCommit() {
+            if (!written && !isCommitted()) {
+                written = true;
+                writeHeaders((HttpServletResponse) getResponse(), stats);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            beforeCommit();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            beforeCommit();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            beforeCommit();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            beforeCommit();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            beforeCommit();
+            super.sendError(sc);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package matheus_henrique.TechManage.Infra;
+
+import org.hibernate.SessionEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// Alimenta o SqlStats: como statement inspector vê o SQL preparado, como session listener (uma
+// instância por sessão) mede cada execução. Registrado no application.properties
+public class SqlStatsListener implements StatementInspector, SessionEventListener {
+    private long executeStart;
+
+    @Override
+    public String inspect(String sql) {
+        var stats = SqlStats.current();
+        if (stats != null)
+            stats.prepared(sql);
+        return sql;
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executed();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        executeStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executed();
+    }
+
+    private void executed() {
+        var stats = SqlStats.current();
+        if (stats != null)
+            stats.executed(System.nanoTime() - executeStart);
+    }
+}
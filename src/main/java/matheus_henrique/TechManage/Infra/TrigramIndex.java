@@ -0,0 +1,368 @@
+package matheus_henrique.TechManage.Infra;
+
+import matheus_henrique.TechManage.Models.UserSearchPage;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Índice invertido dos trigramas de cada palavra do nome e do email, em minúsculas e sem acentos.
+// A busca cruza as listas dos trigramas de cada palavra e confere os candidatos no texto (duas
+// palavras podem ter os trigramas de uma terceira).
+// Cada put é um documento novo e o anterior do usuário só fica marcado como removido até a próxima
+// montagem: os números dos documentos só crescem, então as listas só recebem no fim e guardam
+// deltas em varint. Buscas dividem o lock de leitura, escritas pegam o de escrita
+final class TrigramIndex {
+    // documentos removidos, em fração do total, a partir da qual vale montar de novo
+    private static final double COMPACTION_RATIO = 0.25;
+    private static final int COMPACTION_MINIMUM = 10_000;
+    // a interseção só usa listas até essa razão do número de candidatos
+    private static final int SKIP_RATIO = 8;
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Postings> postings = new HashMap<>();
+
+    // um documento por versão de usuário, na ordem em que entraram
+    private long[] ids = new long[1024];
+    private String[] names = new String[1024];
+    private String[] emails = new String[1024];
+    private int size;
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+
+    // os documentos [0, sorted) estão em ordem de id (a varredura da tabela), achados por busca
+    // binária; os que entram fora de ordem depois ficam no mapa, que some na próxima montagem
+    private int sorted;
+    private final Map<Long, Integer> appended = new HashMap<>();
+
+    void put(long id, String fullName, String email) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(find(id));
+
+            if (size == ids.length)
+                grow();
+            int doc = size++;
+            ids[doc] = id;
+            names[doc] = normalize(fullName);
+            emails[doc] = normalize(email);
+
+            if (doc == sorted && appended.isEmpty() && (doc == 0 || ids[doc - 1] < id))
+                sorted++;
+            else
+                appended.put(id, doc);
+
+            for (int key : trigrams(names[doc], emails[doc]))
+                postings.computeIfAbsent(key, k -> new Postings()).add(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return removeDocument(find(id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Melhor primeiro: nome começando com a palavra, uma palavra do nome, email começando com ela,
+    // qualquer parte do nome e qualquer parte do email; empate vai para o nome mais curto e o menor id.
+    // IllegalArgumentException se nenhuma palavra tem 3 letras
+    UserSearchPage search(String query, int offset, int limit) {
+        String text = normalize(query);
+        List<String> words = words(text);
+        int[] keys = trigrams(words);
+        if (keys.length == 0)
+            throw new IllegalArgumentException("A busca precisa de pelo menos uma palavra com 3 letras ou mais");
+
+        lock.readLock().lock();
+        try {
+            // da lista mais curta para a mais longa, a interseção só encolhe
+            List<Postings> lists = new ArrayList<>(keys.length);
+            for (int key : keys) {
+                var list = postings.get(key);
+                if (list == null)
+                    return new UserSearchPage(List.of(), null);
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.count));
+
+            int[] candidates = lists.get(0).decode();
+            int count = candidates.length;
+            // a conferência do texto já descarta os falsos: não vale decodificar uma lista
+            // muito mais longa que os candidatos que restam
+            for (int i = 1; i < lists.size() && count > 0 && lists.get(i).count <= count * SKIP_RATIO; i++)
+                count = lists.get(i).retain(candidates, count);
+
+            List<String> spaced = words.stream().map(word -> " " + word).toList();
+
+            // heap com os offset + limit + 1 melhores, o pior no topo
+            int wanted = offset + limit + 1;
+            PriorityQueue<Match> best = new PriorityQueue<>(Math.min(wanted, Math.max(count, 1)), Match.ORDER.reversed());
+            for (int i = 0; i < count; i++) {
+                int doc = candidates[i];
+                if (removed.get(doc))
+                    continue;
+                int score = score(doc, text, words, spaced);
+                if (score == 0)
+                    continue;
+                if (best.size() < wanted)
+                    best.offer(new Match(ids[doc], score, names[doc].length()));
+                else if (best.peek().isWorseThan(ids[doc], score, names[doc].length())) {
+                    best.poll();
+                    best.offer(new Match(ids[doc], score, names[doc].length()));
+                }
+            }
+
+            List<Match> ranked = new ArrayList<>(best);
+            ranked.sort(Match.ORDER);
+            boolean hasMore = ranked.size() > offset + limit;
+            List<Long> page = new ArrayList<>(limit);
+            for (int i = offset; i < Math.min(ranked.size(), offset + limit); i++)
+                page.add(ranked.get(i).id());
+            return new UserSearchPage(page, hasMore ? (long) offset + limit : null);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int documents() {
+        lock.readLock().lock();
+        try {
+            return size - removedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            return removedCount >= COMPACTION_MINIMUM && removedCount > size * COMPACTION_RATIO;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Estimativa do heap ocupado, com compressed oops: cabeçalhos, arrays e strings Latin-1
+    long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 16L + ids.length * 8L + 2 * (16L + names.length * 4L) + removed.size() / 8;
+            for (int doc = 0; doc < size; doc++)
+                if (names[doc] != null)
+                    bytes += 2 * 40L + names[doc].length() + emails[doc].length();
+            for (Postings list : postings.values())
+                // entrada do HashMap + Integer da chave + objeto e array da lista
+                bytes += 32 + 16 + 32 + 16 + list.bytes.length;
+            bytes += appended.size() * (32L + 16 + 16);
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int find(long id) {
+        Integer doc = appended.get(id);
+        if (doc != null)
+            return doc;
+        int index = Arrays.binarySearch(ids, 0, sorted, id);
+        return index >= 0 && !removed.get(index) ? index : -1;
+    }
+
+    private boolean removeDocument(int doc) {
+        if (doc < 0)
+            return false;
+
+        removed.set(doc);
+        removedCount++;
+        appended.remove(ids[doc], doc);
+        // as listas ainda apontam para o documento, mas o texto já pode ser liberado
+        names[doc] = null;
+        emails[doc] = null;
+        return true;
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        emails = Arrays.copyOf(emails, capacity);
+    }
+
+    // 0 quando alguma palavra não aparece no documento (falso candidato da interseção)
+    private int score(int doc, String text, List<String> words, List<String> spaced) {
+        String name = names[doc];
+        String email = emails[doc];
+        int score = 0;
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            int best;
+            if (name.startsWith(word))
+                best = 5;
+            else if (name.contains(spaced.get(i)))
+                best = 4;
+            else if (email.startsWith(word))
+                best = 3;
+            else if (name.contains(word))
+                best = 2;
+            else if (email.contains(word))
+                best = 1;
+            else
+                return 0;
+            score += best;
+        }
+        if (name.equals(text) || email.equals(text))
+            score += 10;
+        return score;
+    }
+
+    private static int[] trigrams(String name, String email) {
+        List<String> words = words(name);
+        words.addAll(words(email));
+        return trigrams(words);
+    }
+
+    // Trigramas distintos das palavras, ordenados. Cada char entra com 10 bits: chars fora
+    // do Latin-1 podem colidir, o que só gera candidatos a mais para a conferência do texto
+    private static int[] trigrams(List<String> words) {
+        int total = 0;
+        for (String word : words)
+            total += Math.max(0, word.length() - 2);
+
+        int[] keys = new int[total];
+        int count = 0;
+        for (String word : words)
+            for (int i = 0; i + 3 <= word.length(); i++)
+                keys[count++] = (word.charAt(i) & 0x3FF) << 20 | (word.charAt(i + 1) & 0x3FF) << 10 | (word.charAt(i + 2) & 0x3FF);
+
+        Arrays.sort(keys);
+        int distinct = 0;
+        for (int i = 0; i < count; i++)
+            if (distinct == 0 || keys[distinct - 1] != keys[i])
+                keys[distinct++] = keys[i];
+        return Arrays.copyOf(keys, distinct);
+    }
+
+    // Sequências de letras e dígitos; o resto (espaço, ponto, @) separa as palavras
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0)
+                start = i;
+            else if (!letter && start >= 0) {
+                words.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // Minúsculas e sem acentos, "João" também acha "joao"
+    static String normalize(String text) {
+        if (text == null)
+            return "";
+
+        for (int i = 0; i < text.length(); i++)
+            if (text.charAt(i) > 0x7F)
+                return ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                        .replaceAll("")
+                        .toLowerCase(Locale.ROOT);
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private record Match(long id, int score, int nameLength) {
+        static final Comparator<Match> ORDER = Comparator.comparingInt(Match::score).reversed()
+                .thenComparingInt(Match::nameLength)
+                .thenComparingLong(Match::id);
+
+        // Mesma ordem de ORDER, sem criar o Match do candidato
+        boolean isWorseThan(long id, int score, int nameLength) {
+            if (this.score != score)
+                return this.score < score;
+            if (this.nameLength != nameLength)
+                return this.nameLength > nameLength;
+            return this.id > id;
+        }
+    }
+
+    // Números de documento crescentes, gravados como diferença para o anterior em varint
+    private static final class Postings {
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int count;
+        private int last;
+
+        void add(int doc) {
+            int delta = doc - last;
+            last = doc;
+            count++;
+            while (true) {
+                if (length == bytes.length)
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                if ((delta & ~0x7F) == 0) {
+                    bytes[length++] = (byte) delta;
+                    return;
+                }
+                bytes[length++] = (byte) (delta & 0x7F | 0x80);
+                delta >>>= 7;
+            }
+        }
+
+        int[] decode() {
+            int[] docs = new int[count];
+            int doc = 0;
+            int position = 0;
+            for (int i = 0; i < count; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = bytes[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += delta;
+                docs[i] = doc;
+            }
+            return docs;
+        }
+
+        // Mantém no início de candidates (ordenado) só os que também estão nesta lista
+        int retain(int[] candidates, int count) {
+            int kept = 0;
+            int position = 0;
+            int read = 0;
+            int value = 0;
+            int doc = -1;
+            for (int i = 0; i < count; i++) {
+                int candidate = candidates[i];
+                while (doc < candidate && read < this.count) {
+                    int delta = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = bytes[position++];
+                        delta |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    value += delta;
+                    doc = value;
+                    read++;
+                }
+                if (doc == candidate)
+                    candidates[kept++] = candidate;
+                else if (doc < candidate)
+                    break; // a lista acabou
+            }
+            return kept;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package matheus_henrique.TechManage.Infra;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import matheus_henrique.TechManage.Models.UserView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
+
+// Emails e telefones da tabela para a validação dos lotes: o que o filtro nunca viu com certeza
+// não está na tabela e não vai ao banco. Até a primeira montagem tudo é um possível acerto; valores
+// removidos ou trocados ficam até a próxima montagem e só custam uma consulta. Quem garante a
+// unicidade continuam sendo as constraints
+@Component
+public class UniquenessFilter extends UserTableMirror<UniquenessFilter.Filters> {
+    public static final String NAME = "users.uniqueness.filter";
+
+    record Filters(BloomFilter emails, BloomFilter phones) {
+        Filters(long capacity, double falsePositiveProbability) {
+            this(new BloomFilter(capacity, falsePositiveProbability), new BloomFilter(capacity, falsePositiveProbability));
+        }
+
+        void add(String email, String phone) {
+            if (email != null)
+                emails.put(email);
+            if (phone != null)
+                phones.put(phone);
+        }
+
+        // mais valores do que o tamanho para o qual os filtros foram dimensionados
+        boolean saturated() {
+            return emails.entries() > emails.capacity() || phones.entries() > phones.capacity();
+        }
+    }
+
+    private final UserRepository repository;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+
+    private final LongAdder definitelyAbsent = new LongAdder();
+    private final LongAdder possibleHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public UniquenessFilter(UserRepository repository,
+                            @Value("${techmanage.uniqueness-filter.enabled:true}") boolean enabled,
+                            @Value("${techmanage.uniqueness-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${techmanage.uniqueness-filter.false-positive-probability:0.01}") double falsePositiveProbability) {
+        super(NAME, enabled);
+        this.repository = repository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+    }
+
+    public boolean mightContainEmail(String email) {
+        var filters = current();
+        return record(filters == null || email == null || filters.emails().mightContain(email));
+    }
+
+    public boolean mightContainPhone(String phone) {
+        var filters = current();
+        return record(filters == null || phone == null || filters.phones().mightContain(PhoneNormalizer.normalize(phone)));
+    }
+
+    // Um possível acerto que o banco respondeu que não existe
+    public void falsePositive(int count) {
+        falsePositives.add(count);
+    }
+
+    // Dimensionado para o dobro da tabela atual, nunca menos que a configuração
+    @Override
+    protected Filters newState() {
+        return new Filters(Math.max(expectedInsertions, repository.count() * 2), falsePositiveProbability);
+    }
+
+    @Override
+    protected List<Object[]> scan(long after, Limit limit) {
+        return repository.findUniqueKeysAfter(after, limit);
+    }
+
+    @Override
+    protected void load(Filters filters, Object[] row) {
+        filters.add((String) row[1], (String) row[2]);
+    }
+
+    // Adicionar duas vezes não muda o filtro, então todas as escritas vão também para o filtro em montagem
+    @Override
+    protected void apply(Filters filters, UserChangedEvent event, LongPredicate read) {
+        for (UserView user : event.users())
+            filters.add(user.email(), PhoneNormalizer.normalize(user.phone()));
+    }
+
+    @Override
+    protected void applied(Filters filters) {
+        if (filters.saturated() && !isRebuilding())
+            rebuildInBackground();
+    }
+
+    // A tabela cresceu durante a varredura além do que o filtro comporta
+    @Override
+    protected void rebuilt(Filters previous, Filters next, long rows) {
+        if (next.saturated())
+            rebuildInBackground();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        super.bindTo(registry);
+        Gauge.builder(NAME + ".entries", this, f -> f.current() == null ? 0 : f.current().emails().entries() + f.current().phones().entries())
+                .description("Emails e telefones no filtro")
+                .register(registry);
+        Gauge.builder(NAME + ".size", this, f -> f.current() == null ? 0 : (f.current().emails().bitSize() + f.current().phones().bitSize()) / 8.0)
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(NAME + ".expected.false.positive.rate", this,
+                        f -> f.current() == null ? 1 : Math.max(f.current().emails().expectedFalsePositiveProbability(),
+                                f.current().phones().expectedFalsePositiveProbability()))
+                .register(registry);
+        // falsos positivos / todos os valores que não estavam na tabela
+        Gauge.builder(NAME + ".false.positive.rate", this, f -> {
+                    double negatives = f.definitelyAbsent.sum() + f.falsePositives.sum();
+                    return negatives == 0 ? 0 : f.falsePositives.sum() / negatives;
+                })
+                .register(registry);
+        FunctionCounter.builder(NAME + ".checks", definitelyAbsent, LongAdder::sum)
+                .tag("result", "absent")
+                .register(registry);
+        FunctionCounter.builder(NAME + ".checks", possibleHits, LongAdder::sum)
+                .tag("result", "possible")
+                .register(registry);
+    }
+
+    private boolean record(boolean possible) {
+        (possible ? possibleHits : definitelyAbsent).increment();
+        return possible;
+    }
+}
@@ -0,0 +1,51 @@
+package matheus_henrique.TechManage.Infra;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import matheus_henrique.TechManage.Models.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongFunction;
+
+// Usuários por id, limitado por tamanho e por tempo desde a carga. Invalidar uma chave também
+// descarta a carga dela em andamento: invalidando depois do commit, uma leitura anterior a um
+// delete não recoloca o usuário. Usuários inexistentes não são guardados
+@Component
+public class UserCache implements MeterBinder {
+    public static final String NAME = "users";
+
+    private final AsyncCache<Long, User> cache;
+
+    public UserCache(@Value("${techmanage.cache.users.maximum-size:10000}") long maximumSize,
+                     @Value("${techmanage.cache.users.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+    public User get(long id, LongFunction<User> loader) {
+        return AsyncCaches.get(cache, id, loader::apply);
+    }
+
+    public void invalidate(long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    // cache.gets{result=hit|miss}, cache.evictions, cache.size... no /actuator/metrics
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), NAME);
+    }
+}
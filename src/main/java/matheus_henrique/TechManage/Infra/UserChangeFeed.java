@@ -0,0 +1,217 @@
+package matheus_henrique.TechManage.Infra;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import matheus_henrique.TechManage.Models.UserChange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// SSE do UserChangeLog em GET /api/users/changes. Cada subscriber tem seu cursor no log e sua thread
+// virtual: o que ele ainda não recebeu fica no próprio log, não numa fila dele, e um cliente lento só
+// atrasa o próprio stream. Quem fica mais atrás que o log recebe reset e segue da mudança mais antiga.
+// As escritas vão para um pool de threads de plataforma, que só cresce enquanto há escrita bloqueada:
+// SseEmitter.send é synchronized e prenderia a carrier da thread virtual
+@Slf4j
+@Component
+public class UserChangeFeed implements MeterBinder {
+    public static final String NAME = "users.changes";
+    // entradas enviadas por flush
+    static final int BATCH = 256;
+    // SSE event de quem perdeu mudanças
+    public static final String RESET = "reset";
+
+    private final UserChangeLog changeLog;
+    private final int maxSubscribers;
+    private final Duration timeout;
+    private final Duration heartbeat;
+    private final Duration initializeTimeout;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // vagas de stream: reservada antes de criar o subscriber, devolvida quando a thread dele termina
+    private final Semaphore slots;
+    // no máximo um envio em andamento por subscriber, então nunca recusa
+    private final ExecutorService senders;
+    private final AtomicLong names = new AtomicLong();
+    private final LongAdder resets = new LongAdder();
+
+    public UserChangeFeed(UserChangeLog changeLog,
+                          @Value("${techmanage.changes.max-subscribers:200}") int maxSubscribers,
+                          @Value("${techmanage.changes.timeout:30m}") Duration timeout,
+                          @Value("${techmanage.changes.heartbeat:15s}") Duration heartbeat,
+                          @Value("${techmanage.changes.initialize-timeout:10s}") Duration initializeTimeout) {
+        this.changeLog = changeLog;
+        this.maxSubscribers = maxSubscribers;
+        this.timeout = timeout;
+        this.heartbeat = heartbeat;
+        this.initializeTimeout = initializeTimeout;
+        this.slots = new Semaphore(maxSubscribers);
+        this.senders = new ThreadPoolExecutor(0, maxSubscribers, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                Thread.ofPlatform().name(NAME + "-send-", 1).daemon().factory());
+    }
+
+    // As mudanças depois de after (ou de agora em diante, se null); null com max-subscribers streams abertos
+    public SseEmitter subscribe(Long after) {
+        if (!slots.tryAcquire())
+            return null;
+
+        var subscriber = new Subscriber(timeout);
+        long last = changeLog.lastSeq();
+        // um cursor à frente do log não é desta execução (nem de nenhuma)
+        subscriber.cursor = after == null ? last : after;
+        subscribers.add(subscriber);
+
+        subscriber.thread = Thread.ofVirtual()
+                .name("changes-" + names.incrementAndGet())
+                .start(() -> stream(subscriber, after != null && after > last));
+        subscriber.onCompletion(subscriber::close);
+        subscriber.onTimeout(subscriber::close);
+        subscriber.onError(e -> subscriber.close());
+        return subscriber;
+    }
+
+    @PreDestroy
+    void stop() {
+        subscribers.forEach(Subscriber::close);
+        senders.shutdownNow();
+    }
+
+    int openStreams() {
+        return maxSubscribers - slots.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(NAME + ".subscribers", this, UserChangeFeed::openStreams)
+                .description("Streams de mudanças abertos")
+                .register(registry);
+        Gauge.builder(NAME + ".log.size", changeLog, UserChangeLog::size)
+                .description("Mudanças guardadas no log")
+                .register(registry);
+        FunctionCounter.builder(NAME + ".resets", resets, LongAdder::sum)
+                .description("Streams que ficaram para trás do log e perderam mudanças")
+                .register(registry);
+    }
+
+    private void stream(Subscriber subscriber, boolean unknownCursor) {
+        try {
+            // sem o retorno do controller processado pelo Spring a resposta nunca fica pronta,
+            // e nem o timeout nem a desconexão do emitter chegariam a esta thread
+            if (!subscriber.initialized.await(initializeTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Stream de mudanças não foi iniciado em {}, encerrando", initializeTimeout);
+                return;
+            }
+            if (unknownCursor)
+                subscriber.cursor = reset(subscriber, changeLog.lastSeq());
+
+            while (!Thread.currentThread().isInterrupted()) {
+                var changes = changeLog.read(subscriber.cursor, BATCH, heartbeat);
+                if (changes.isEmpty()) {
+                    // também é como se descobre que o cliente foi embora
+                    send(subscriber, SseEmitter.event().comment("keep-alive").build());
+                    continue;
+                }
+
+                long first = changes.get(0).seq();
+                if (first > subscriber.cursor + 1)
+                    reset(subscriber, first - 1);
+
+                Set<ResponseBodyEmitter.DataWithMediaType> events = new LinkedHashSet<>();
+                for (UserChange change : changes)
+                    events.addAll(SseEmitter.event()
+                            .id(Long.toString(change.seq()))
+                            .name(change.type().name())
+                            .data(change)
+                            .build());
+                send(subscriber, events);
+                subscriber.cursor = changes.get(changes.size() - 1).seq();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException | RejectedExecutionException e) {
+            // cliente desconectado, stream já encerrado (timeout) ou aplicação parando
+            log.debug("Stream de mudanças encerrado: {}", e.toString());
+        } finally {
+            subscribers.remove(subscriber);
+            slots.release();
+            subscriber.complete();
+        }
+    }
+
+    // A escrita, que bloqueia enquanto o cliente não lê, fica numa thread de plataforma do pool
+    // e a thread virtual do subscriber só espera por ela
+    private void send(Subscriber subscriber, Set<ResponseBodyEmitter.DataWithMediaType> events)
+            throws IOException, InterruptedException {
+        try {
+            senders.submit(() -> {
+                subscriber.send(events);
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io)
+                throw io;
+            if (e.getCause() instanceof RuntimeException runtime)
+                throw runtime;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Avisa que as mudanças até seq foram perdidas e continua dali
+    private long reset(Subscriber subscriber, long seq) throws IOException, InterruptedException {
+        resets.increment();
+        send(subscriber, SseEmitter.event()
+                .id(Long.toString(seq))
+                .name(RESET)
+                .data(Map.of("seq", seq))
+                .build());
+        return seq;
+    }
+
+    private static final class Subscriber extends SseEmitter {
+        // liberado logo antes de o emitter passar a escrever direto na resposta: antes disso
+        // o SseEmitter guarda em memória tudo que for enviado, sem limite
+        private final CountDownLatch initialized = new CountDownLatch(1);
+        private volatile Thread thread;
+        // seq da última mudança enviada, só usado pela thread do subscriber
+        private long cursor;
+
+        Subscriber(Duration timeout) {
+            super(timeout.toMillis());
+        }
+
+        @Override
+        protected void extendResponse(ServerHttpResponse outputMessage) {
+            super.extendResponse(outputMessage);
+            initialized.countDown();
+        }
+
+        void close() {
+            var current = thread;
+            if (current != null)
+                current.interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package matheus_henrique.TechManage.Infra;
+
+import matheus_henrique.TechManage.Enums.EUserChangeType;
+import matheus_henrique.TechManage.Models.UserChange;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Uma entrada por usuário de cada UserChangedEvent, num anel de capacity entradas: as mais antigas
+// são sobrescritas, e quem fica mais atrás que isso encontra um buraco. Acrescentar é O(1) e nunca
+// espera pelos leitores
+@Component
+public class UserChangeLog {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final UserChange[] entries;
+    private final long first;
+    // seq da próxima entrada
+    private long next;
+
+    public UserChangeLog(@Value("${techmanage.changes.capacity:100000}") int capacity) {
+        entries = new UserChange[capacity];
+        // começa no instante da subida em microssegundos: o seq continua crescendo depois de um
+        // reinício, e um cursor da execução anterior cai antes do log em vez de dentro dele
+        first = System.currentTimeMillis() * 1000;
+        next = first;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        append(event.type(), event.ids());
+    }
+
+    public void append(EUserChangeType type, List<Long> ids) {
+        var at = Instant.now();
+        lock.lock();
+        try {
+            for (Long id : ids) {
+                entries[(int) (next % entries.length)] = new UserChange(next, type, id, at);
+                next++;
+            }
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Seq da última entrada; first - 1 enquanto o log está vazio
+    public long lastSeq() {
+        lock.lock();
+        try {
+            return next - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return (int) (next - oldest());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Até max entradas depois de after, esperando até timeout por uma (lista vazia no timeout).
+    // Se as seguintes a after já foram sobrescritas, começa pela mais antiga que sobrou
+    public List<UserChange> read(long after, int max, Duration timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            long nanos = timeout.toNanos();
+            while (next <= after + 1 && nanos > 0)
+                nanos = appended.awaitNanos(nanos);
+
+            long from = Math.max(after + 1, oldest());
+            int count = (int) Math.max(0, Math.min(max, next - from));
+            List<UserChange> changes = new ArrayList<>(count);
+            for (long seq = from; seq < from + count; seq++)
+                changes.add(entries[(int) (seq % entries.length)]);
+            return changes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long oldest() {
+        return Math.max(first, next - entries.length);
+    }
+}
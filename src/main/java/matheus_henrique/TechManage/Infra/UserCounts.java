@@ -0,0 +1,104 @@
+package matheus_henrique.TechManage.Infra;
+
+import gen.model.UserStatsModel;
+import matheus_henrique.TechManage.Enums.EUserType;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Contagens movidas só por deltas (a escrita tira o usuário como estava e soma como ficou), sem nada
+// guardado por usuário. LongAdder e um contador por dia num AtomicLongArray fixo, de onde saem as
+// faixas de idade: nenhuma escrita ou leitura trava nem depende do número de usuários. Um snapshot
+// lido durante escritas pode ver o total e as outras contagens uma escrita de diferença
+final class UserCounts {
+    static final LocalDate FIRST_DAY = LocalDate.of(1900, 1, 1);
+    static final LocalDate LAST_DAY = LocalDate.of(2099, 12, 31);
+    private static final int DAYS = (int) ChronoUnit.DAYS.between(FIRST_DAY, LAST_DAY) + 1;
+    private static final EUserType[] TYPES = EUserType.values();
+    // idade mínima de cada faixa, a última não tem limite
+    private static final int[] AGE_BUCKETS = {0, 18, 25, 35, 45, 55, 65};
+
+    private final LongAdder total = new LongAdder();
+    private final LongAdder[] byType = new LongAdder[TYPES.length];
+    private final AtomicLongArray byBirthDay = new AtomicLongArray(DAYS);
+
+    UserCounts() {
+        for (int i = 0; i < byType.length; i++)
+            byType[i] = new LongAdder();
+    }
+
+    // delta 1 conta o usuário, -1 desconta
+    void add(EUserType type, LocalDate birthDate, int delta) {
+        total.add(delta);
+        byType[type.ordinal()].add(delta);
+        byBirthDay.addAndGet(day(birthDate), delta);
+    }
+
+    long total() {
+        return total.sum();
+    }
+
+    long count(EUserType type) {
+        return byType[type.ordinal()].sum();
+    }
+
+    // Faixas de idade em today; nascidos no futuro contam com 0 anos e datas fora de FIRST_DAY..LAST_DAY
+    // contam nesses dias
+    UserStatsModel snapshot(LocalDate today) {
+        Map<String, Long> types = new LinkedHashMap<>();
+        for (EUserType type : TYPES)
+            types.put(type.name(), count(type));
+
+        // último dia de nascimento de quem tem pelo menos a idade mínima de cada faixa
+        int[] lastDay = new int[AGE_BUCKETS.length];
+        for (int i = 0; i < AGE_BUCKETS.length; i++)
+            lastDay[i] = day(today.minusYears(AGE_BUCKETS[i]));
+
+        // do nascimento mais antigo ao mais novo: a idade só diminui e o ano só aumenta
+        long[] ages = new long[AGE_BUCKETS.length];
+        Map<String, Long> years = new LinkedHashMap<>();
+        int bucket = AGE_BUCKETS.length - 1;
+        int year = FIRST_DAY.getYear();
+        int nextYear = day(FIRST_DAY.plusYears(1));
+        long yearCount = 0;
+        for (int day = 0; day < DAYS; day++) {
+            if (day == nextYear) {
+                if (yearCount > 0)
+                    years.put(Integer.toString(year), yearCount);
+                yearCount = 0;
+                year++;
+                nextYear = day(LocalDate.of(year + 1, 1, 1));
+            }
+            long count = byBirthDay.get(day);
+            if (count == 0)
+                continue;
+            while (bucket > 0 && day > lastDay[bucket])
+                bucket--;
+            ages[bucket] += count;
+            yearCount += count;
+        }
+        if (yearCount > 0)
+            years.put(Integer.toString(year), yearCount);
+
+        Map<String, Long> ageBuckets = new LinkedHashMap<>();
+        for (int i = 0; i < AGE_BUCKETS.length; i++)
+            ageBuckets.put(i + 1 < AGE_BUCKETS.length
+                    ? AGE_BUCKETS[i] + "-" + (AGE_BUCKETS[i + 1] - 1)
+                    : AGE_BUCKETS[i] + "+", ages[i]);
+
+        return new UserStatsModel()
+                .total(total())
+                .byUserType(types)
+                .ageBuckets(ageBuckets)
+                .birthYears(years);
+    }
+
+    private static int day(LocalDate date) {
+        long day = ChronoUnit.DAYS.between(FIRST_DAY, date);
+        return (int) Math.max(0, Math.min(DAYS - 1, day));
+    }
+}
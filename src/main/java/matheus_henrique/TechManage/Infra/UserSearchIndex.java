@@ -0,0 +1,82 @@
+package matheus_henrique.TechManage.Infra;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import matheus_henrique.TechManage.Enums.EUserChangeType;
+import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import matheus_henrique.TechManage.Models.UserSearchPage;
+import matheus_henrique.TechManage.Models.UserView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.LongPredicate;
+
+// Índice do GET /api/users/search; search devolve null até a primeira montagem. É montado de novo
+// quando muitos documentos já são versões antigas de usuários
+@Component
+public class UserSearchIndex extends UserTableMirror<TrigramIndex> {
+    public static final String NAME = "users.search.index";
+
+    private final UserRepository repository;
+
+    public UserSearchIndex(UserRepository repository,
+                           @Value("${techmanage.search.enabled:true}") boolean enabled) {
+        super(NAME, enabled);
+        this.repository = repository;
+    }
+
+    public UserSearchPage search(String query, int offset, int limit) {
+        var index = current();
+        return index == null ? null : index.search(query, offset, limit);
+    }
+
+    @Override
+    protected TrigramIndex newState() {
+        return new TrigramIndex();
+    }
+
+    @Override
+    protected List<Object[]> scan(long after, Limit limit) {
+        return repository.findSearchKeysAfter(after, limit);
+    }
+
+    @Override
+    protected void load(TrigramIndex index, Object[] row) {
+        index.put((Long) row[0], (String) row[1], (String) row[2]);
+    }
+
+    // Os usuários que a varredura ainda não leu ficam para ela, que os lê em ordem de id
+    @Override
+    protected void apply(TrigramIndex index, UserChangedEvent event, LongPredicate read) {
+        if (event.type() == EUserChangeType.DELETED) {
+            for (Long id : event.ids())
+                if (read.test(id))
+                    index.remove(id);
+            return;
+        }
+        for (UserView user : event.users())
+            if (read.test(user.id()))
+                index.put(user.id(), user.fullName(), user.email());
+    }
+
+    @Override
+    protected void applied(TrigramIndex index) {
+        if (index.needsCompaction() && !isRebuilding())
+            rebuildInBackground();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        super.bindTo(registry);
+        Gauge.builder(NAME + ".documents", this, i -> i.current() == null ? 0 : i.current().documents())
+                .description("Usuários no índice de busca")
+                .register(registry);
+        Gauge.builder(NAME + ".size", this, i -> i.current() == null ? 0 : i.current().memoryBytes())
+                .description("Estimativa da memória ocupada pelo índice")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
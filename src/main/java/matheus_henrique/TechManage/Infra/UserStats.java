@@ -0,0 +1,119 @@
+package matheus_henrique.TechManage.Infra;
+
+import gen.model.UserStatsModel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import matheus_henrique.TechManage.Enums.EUserType;
+import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import matheus_henrique.TechManage.Models.UserView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+// Contagens do GET /api/users/stats; snapshot devolve null até a primeira carga. A cada
+// reconcile-interval elas são lidas de novo da tabela e substituem as mantidas pelos eventos,
+// corrigindo o que passou por fora da aplicação; a diferença vai para o log e para users.stats.drift
+@Slf4j
+@Component
+public class UserStats extends UserTableMirror<UserCounts> {
+    public static final String NAME = "users.stats";
+
+    private final UserRepository repository;
+    private final Duration reconcileInterval;
+    private ScheduledExecutorService scheduler;
+
+    private volatile OffsetDateTime reconciledAt;
+    private volatile long lastDrift;
+
+    public UserStats(UserRepository repository,
+                     @Value("${techmanage.stats.enabled:true}") boolean enabled,
+                     @Value("${techmanage.stats.reconcile-interval:10m}") Duration reconcileInterval) {
+        super(NAME, enabled);
+        this.repository = repository;
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    // A primeira carga logo após a subida, as conferências a cada reconcile-interval depois dela
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!isEnabled())
+            return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name(NAME).daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, 0, reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null)
+            scheduler.shutdownNow();
+    }
+
+    public UserStatsModel snapshot() {
+        var counts = current();
+        return counts == null ? null : counts.snapshot(LocalDate.now()).reconciledAt(reconciledAt);
+    }
+
+    @Override
+    protected UserCounts newState() {
+        return new UserCounts();
+    }
+
+    @Override
+    protected List<Object[]> scan(long after, Limit limit) {
+        return repository.findStatsKeysAfter(after, limit);
+    }
+
+    @Override
+    protected void load(UserCounts counts, Object[] row) {
+        counts.add((EUserType) row[1], (LocalDate) row[2], 1);
+    }
+
+    @Override
+    protected void apply(UserCounts counts, UserChangedEvent event, LongPredicate read) {
+        for (UserView user : event.previous())
+            if (read.test(user.id()))
+                counts.add(user.userType(), user.birthDate(), -1);
+        for (UserView user : event.users())
+            if (read.test(user.id()))
+                counts.add(user.userType(), user.birthDate(), 1);
+    }
+
+    @Override
+    protected void rebuilt(UserCounts previous, UserCounts next, long rows) {
+        reconciledAt = OffsetDateTime.now();
+        if (previous == null)
+            return;
+        lastDrift = drift(previous, next);
+        if (lastDrift > 0)
+            log.warn("Estatísticas de usuários diferentes do banco: {} usuários de diferença", lastDrift);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        super.bindTo(registry);
+        Gauge.builder(NAME + ".drift", this, s -> s.lastDrift)
+                .description("Diferença entre as contagens mantidas pelas escritas e o banco na última conferência")
+                .register(registry);
+    }
+
+    // Usuários a mais ou a menos no total e em cada tipo
+    private static long drift(UserCounts previous, UserCounts next) {
+        long drift = Math.abs(previous.total() - next.total());
+        for (EUserType type : EUserType.values())
+            drift = Math.max(drift, Math.abs(previous.count(type) - next.count(type)));
+        return drift;
+    }
+}
@@ -0,0 +1,167 @@
+package matheus_henrique.TechManage.Infra;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongPredicate;
+
+// Estado em memória derivado da tabela de usuários: montado por uma varredura em segundo plano
+// depois da subida e mantido pelos UserChangedEvent de cada escrita já commitada. Escritas de fora
+// da aplicação só aparecem na próxima montagem.
+// Durante a varredura, as escritas vão para o estado em uso e para o que está sendo montado.
+// apply recebe quais usuários a varredura já leu: os que ela ainda não alcançou serão lidos por ela.
+// Só uma escrita commitada enquanto o bloco do seu usuário é lido pode entrar duas vezes ou faltar
+// no estado novo, o que só importa para o que não é idempotente
+@Slf4j
+public abstract class UserTableMirror<T> implements ApplicationRunner, MeterBinder {
+    // linhas lidas por consulta ao montar
+    static final int SCAN_CHUNK = 10_000;
+
+    private final String name;
+    private final boolean enabled;
+
+    // null até a primeira montagem terminar
+    private volatile T current;
+    // o estado sendo montado, que também recebe as escritas feitas durante a varredura
+    private volatile T building;
+    // último id lido pela varredura em andamento
+    private volatile long scanned;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile long lastRebuildNanos;
+    private final LongAdder rebuilds = new LongAdder();
+
+    protected UserTableMirror(String name, boolean enabled) {
+        this.name = name;
+        this.enabled = enabled;
+    }
+
+    protected abstract T newState();
+
+    // As próximas linhas com id maior que after, em ordem de id e com o id primeiro
+    protected abstract List<Object[]> scan(long after, Limit limit);
+
+    protected abstract void load(T state, Object[] row);
+
+    // read: se o usuário já está no estado (sempre, no estado em uso; no em montagem, só se já foi lido)
+    protected abstract void apply(T state, UserChangedEvent event, LongPredicate read);
+
+    // Depois de cada escrita no estado em uso, para agendar uma nova montagem se precisar
+    protected void applied(T state) {
+    }
+
+    // previous é null na primeira montagem
+    protected void rebuilt(T previous, T next, long rows) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled)
+            rebuildInBackground();
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    protected boolean isEnabled() {
+        return enabled;
+    }
+
+    protected T current() {
+        return current;
+    }
+
+    protected boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    // Só depois do commit: uma escrita desfeita pelo banco nunca chega aqui
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (!enabled)
+            return;
+
+        // building antes de current: se a troca acontecer entre as duas leituras, uma delas já vê o estado novo
+        var next = building;
+        var state = current;
+        if (next != null && next != state) {
+            long read = scanned;
+            apply(next, event, id -> id <= read);
+        }
+        if (state != null) {
+            apply(state, event, id -> true);
+            applied(state);
+        }
+    }
+
+    // Lê a tabela inteira num estado novo, que substitui o atual
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true))
+            return;
+
+        long start = System.nanoTime();
+        T previous = current;
+        T next;
+        long rows = 0;
+        try {
+            scanned = Long.MIN_VALUE;
+            next = newState();
+            building = next;
+
+            List<Object[]> chunk;
+            do {
+                chunk = scan(scanned, Limit.of(SCAN_CHUNK));
+                for (Object[] row : chunk)
+                    load(next, row);
+                if (!chunk.isEmpty())
+                    scanned = (Long) chunk.get(chunk.size() - 1)[0];
+                rows += chunk.size();
+            } while (chunk.size() == SCAN_CHUNK);
+
+            current = next;
+            rebuilds.increment();
+        } finally {
+            building = null;
+            lastRebuildNanos = System.nanoTime() - start;
+            rebuilding.set(false);
+        }
+        log.info("{} montado com {} usuários em {} ms", name, rows, TimeUnit.NANOSECONDS.toMillis(lastRebuildNanos));
+        rebuilt(previous, next, rows);
+    }
+
+    protected void rebuildInBackground() {
+        Thread.ofPlatform()
+                .name(name)
+                .daemon()
+                .start(this::rebuildQuietly);
+    }
+
+    // Para as threads em segundo plano: o erro só é registrado, a próxima montagem tenta de novo
+    protected void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Erro ao montar {} a partir da tabela de usuários", name, e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(name + ".rebuilds", rebuilds, LongAdder::sum)
+                .register(registry);
+        TimeGauge.builder(name + ".rebuild.duration", this, TimeUnit.NANOSECONDS, m -> m.lastRebuildNanos)
+                .register(registry);
+    }
+}
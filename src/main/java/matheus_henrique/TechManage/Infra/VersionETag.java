@@ -0,0 +1,33 @@
+package matheus_henrique.TechManage.Infra;
+
+import matheus_henrique.TechManage.Exceptions.UserVersionMismatchException;
+
+// ETag de um usuário a partir da versão: ao contrário de um hash do corpo, o If-Match com ela é
+// conferido pelo próprio banco, na leitura travada antes do UPDATE/DELETE
+public final class VersionETag {
+    private VersionETag() {
+    }
+
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // null quando a escrita não é condicional (sem header ou "*"). If-Match usa a comparação forte:
+    // uma ETag fraca ou que não é de versão nunca bate, e já vira UserVersionMismatchException
+    public static Long parse(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank())
+            return null;
+
+        String tag = ifMatch.trim();
+        if (tag.equals("*"))
+            return null;
+
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"')
+            throw new UserVersionMismatchException();
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new UserVersionMismatchException();
+        }
+    }
+}
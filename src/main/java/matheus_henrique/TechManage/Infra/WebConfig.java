@@ -0,0 +1,19 @@
+package matheus_henrique.TechManage.Infra;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final ApiMetrics apiMetrics;
+
+    public WebConfig(ApiMetrics apiMetrics) {
+        this.apiMetrics = apiMetrics;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(apiMetrics).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,40 @@
+package matheus_henrique.TechManage.Models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import gen.model.ResponseModel;
+import lombok.Getter;
+import org.springframework.util.DigestUtils;
+
+// ResponseModel com o JSON já serializado, escrito como está pelo SerializedResponseConverter
+@Getter
+public class SerializedResponse extends ResponseModel {
+    @JsonIgnore
+    private final byte[] json;
+    @JsonIgnore
+    private final String etag;
+
+    public SerializedResponse(ResponseModel model, byte[] json) {
+        this(model, json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+    }
+
+    public SerializedResponse(ResponseModel model, byte[] json, String etag) {
+        super(model.getErrors(), model.getData(), model.getNextCursor());
+        this.json = json;
+        this.etag = etag;
+    }
+
+    // If-None-Match pode ter várias ETags separadas por vírgula, fracas (W/"...") ou "*"
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null)
+            return false;
+
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag))
+                return true;
+        }
+        return false;
+    }
+}
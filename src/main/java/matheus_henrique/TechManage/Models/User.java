@@ -1,23 +1,41 @@
 package matheus_henrique.TechManage.Models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import matheus_henrique.TechManage.Enums.EUserType;
+import matheus_henrique.TechManage.Infra.PhoneConverter;
 
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        // os nomes são usados para traduzir a violação na mensagem de erro certa (UserAlreadyExistsException)
+        @UniqueConstraint(name = "uk_users_email", columnNames = "email"),
+        @UniqueConstraint(name = "uk_users_phone", columnNames = "phone")
+}, indexes = {
+        // um índice por combinação de filtro + ordenação do GET /api/users, sempre terminando no id (cursor)
+        @Index(name = "idx_users_full_name", columnList = "full_name, id"),
+        @Index(name = "idx_users_birth_date", columnList = "birth_date, id"),
+        @Index(name = "idx_users_type_id", columnList = "user_type, id"),
+        @Index(name = "idx_users_type_full_name", columnList = "user_type, full_name, id"),
+        @Index(name = "idx_users_type_birth_date", columnList = "user_type, birth_date, id"),
+        // busca por email sem diferenciar maiúsculas
+        @Index(name = "idx_users_email_lower", columnList = "email_lower, id")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
+    // Sequência com pooled optimizer (50 ids por chamada): com IDENTITY o Hibernate
+    // não consegue agrupar os inserts em batches JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Full name is required")
@@ -25,10 +43,18 @@ public class User {
 
     @NotBlank(message = "Email is required")
     @Email(message = "Email should be valid")
-    @Column(unique = true)
     private String email;
 
+    // lower(email), coluna gerada pelo banco (V2): só é lida nas consultas, nunca escrita
+    @Column(insertable = false, updatable = false)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String emailLower;
+
+    // gravado sempre normalizado, qualquer que seja o caminho da escrita
     @NotBlank(message = "Phone should not be blank")
+    @Convert(converter = PhoneConverter.class)
     private String phone;
 
     @NotNull(message = "BirthDate should not be null")
@@ -37,4 +63,9 @@ public class User {
     @NotNull(message = "User type is required")
     @Enumerated(EnumType.STRING)
     private EUserType userType;
+
+    // Controle de concorrência otimista: muda a cada escrita e só é exposta como ETag
+    @Version
+    @JsonIgnore
+    private Long version;
 }
\ No newline at end of file
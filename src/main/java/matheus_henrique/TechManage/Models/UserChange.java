@@ -0,0 +1,10 @@
+package matheus_henrique.TechManage.Models;
+
+import matheus_henrique.TechManage.Enums.EUserChangeType;
+
+import java.time.Instant;
+
+// seq ordena as entradas, continua crescendo depois de um reinício e é o id do evento SSE.
+// Sem os dados do usuário: quem consome lê o usuário pelo id
+public record UserChange(long seq, EUserChangeType type, long id, Instant at) {
+}
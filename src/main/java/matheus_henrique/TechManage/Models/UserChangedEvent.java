@@ -0,0 +1,23 @@
+package matheus_henrique.TechManage.Models;
+
+import matheus_henrique.TechManage.Enums.EUserChangeType;
+
+import java.util.List;
+
+// Publicado pela UserService depois de cada escrita, para o que é mantido em memória a partir da
+// tabela. users: como ficaram (create e update); previous: como estavam (update e delete).
+// Um lote de inserts é um evento só
+public record UserChangedEvent(EUserChangeType type, List<Long> ids, List<UserView> users, List<UserView> previous) {
+    public static UserChangedEvent created(List<UserView> users) {
+        return new UserChangedEvent(EUserChangeType.CREATED, users.stream().map(UserView::id).toList(), users,
+                List.of());
+    }
+
+    public static UserChangedEvent updated(UserView previous, UserView user) {
+        return new UserChangedEvent(EUserChangeType.UPDATED, List.of(user.id()), List.of(user), List.of(previous));
+    }
+
+    public static UserChangedEvent deleted(UserView previous) {
+        return new UserChangedEvent(EUserChangeType.DELETED, List.of(previous.id()), List.of(), List.of(previous));
+    }
+}
@@ -0,0 +1,43 @@
+package matheus_henrique.TechManage.Models;
+
+import matheus_henrique.TechManage.Enums.EUserSortField;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Base64;
+
+// Último usuário de uma página: valor do campo ordenado e id para desempate. A próxima página
+// parte só desses valores, sem reler o usuário, então o cursor vale mesmo se ele mudou ou foi removido
+public record UserCursor(EUserSortField sortBy, Object value, long id) {
+    public static UserCursor of(EUserSortField sortBy, UserView user) {
+        return new UserCursor(sortBy, switch (sortBy) {
+            case ID -> null;
+            case FULL_NAME -> user.fullName();
+            case BIRTH_DATE -> user.birthDate();
+        }, user.id());
+    }
+
+    // campo:id[:valor] em base64url, para ninguém montar um cursor à mão
+    public String encode() {
+        String raw = sortBy.getValue() + ":" + id + (value == null ? "" : ":" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // IllegalArgumentException se não veio de encode com a mesma ordenação
+    public static UserCursor decode(String cursor, EUserSortField sortBy) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+            if (parts.length != (sortBy == EUserSortField.ID ? 2 : 3) || !parts[0].equals(sortBy.getValue()))
+                throw new IllegalArgumentException();
+
+            return new UserCursor(sortBy, switch (sortBy) {
+                case ID -> null;
+                case FULL_NAME -> parts[2];
+                case BIRTH_DATE -> LocalDate.parse(parts[2]);
+            }, Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Cursor inválido para a ordenação por " + sortBy.getValue() + "!", e);
+        }
+    }
+}
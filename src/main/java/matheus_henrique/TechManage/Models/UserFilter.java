@@ -0,0 +1,26 @@
+package matheus_henrique.TechManage.Models;
+
+import matheus_henrique.TechManage.Enums.EUserSortField;
+import matheus_henrique.TechManage.Enums.EUserType;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+
+// Cada combinação de filtro e ordenação tem um dos índices declarados em User por trás
+public record UserFilter(
+        EUserType userType,
+        LocalDate birthDateFrom,
+        LocalDate birthDateTo,
+        String fullNamePrefix,
+        EUserSortField sortBy,
+        Sort.Direction direction
+) {
+    public static final UserFilter NONE = new UserFilter(null, null, null, null, EUserSortField.ID, Sort.Direction.ASC);
+
+    public UserFilter {
+        if (sortBy == null)
+            sortBy = EUserSortField.ID;
+        if (direction == null)
+            direction = Sort.Direction.ASC;
+    }
+}
@@ -0,0 +1,9 @@
+package matheus_henrique.TechManage.Models;
+
+import gen.model.UserModel;
+
+import java.util.List;
+
+// nextCursor é de onde a próxima página começa (vai codificado em after), null na última
+public record UserPage(List<UserModel> users, UserCursor nextCursor) {
+}
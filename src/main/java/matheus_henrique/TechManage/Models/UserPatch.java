@@ -0,0 +1,38 @@
+package matheus_henrique.TechManage.Models;
+
+import matheus_henrique.TechManage.Enums.EUserType;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Campos enviados no PATCH pelo nome do atributo em User: só essas colunas são escritas.
+// Um atributo com null foi enviado como null, e a validação dele recusa
+public record UserPatch(Map<String, Object> changes) {
+    public static final String FULL_NAME = "fullName";
+    public static final String EMAIL = "email";
+    public static final String PHONE = "phone";
+    public static final String BIRTH_DATE = "birthDate";
+    public static final String USER_TYPE = "userType";
+
+    public UserPatch {
+        // Map.copyOf não aceita valores nulos
+        changes = Collections.unmodifiableMap(new LinkedHashMap<>(changes));
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    // O usuário como fica depois do UPDATE, a partir de como ele estava: a versão sempre sobe
+    public UserView applyTo(UserView user) {
+        return new UserView(user.id(),
+                (String) changes.getOrDefault(FULL_NAME, user.fullName()),
+                (String) changes.getOrDefault(EMAIL, user.email()),
+                (String) changes.getOrDefault(PHONE, user.phone()),
+                (LocalDate) changes.getOrDefault(BIRTH_DATE, user.birthDate()),
+                (EUserType) changes.getOrDefault(USER_TYPE, user.userType()),
+                user.version() + 1);
+    }
+}
@@ -0,0 +1,7 @@
+package matheus_henrique.TechManage.Models;
+
+import java.util.List;
+
+// Melhor resultado primeiro; nextOffset é null na última página
+public record UserSearchPage(List<Long> ids, Long nextOffset) {
+}
@@ -0,0 +1,37 @@
+package matheus_henrique.TechManage.Models;
+
+import gen.model.UserModel;
+import matheus_henrique.TechManage.Enums.EUserType;
+
+import java.time.LocalDate;
+
+// Linha de users lida coluna a coluna (construtor no JPQL), sem passar pelo contexto de persistência.
+// A versão serve para a ETag e não faz parte do modelo da API
+public record UserView(
+        Long id,
+        String fullName,
+        String email,
+        String phone,
+        LocalDate birthDate,
+        EUserType userType,
+        Long version
+) {
+    // FQN do construtor nas consultas JPQL
+    public static final String SELECT = "new matheus_henrique.TechManage.Models.UserView("
+            + "u.id, u.fullName, u.email, u.phone, u.birthDate, u.userType, u.version)";
+
+    public static UserView of(User user) {
+        return new UserView(user.getId(), user.getFullName(), user.getEmail(), user.getPhone(), user.getBirthDate(),
+                user.getUserType(), user.getVersion());
+    }
+
+    public UserModel toModel() {
+        return new UserModel()
+                .id(id)
+                .fullName(fullName)
+                .email(email)
+                .phone(phone)
+                .birthDate(birthDate)
+                .userType(userType == null ? null : UserModel.UserTypeEnum.valueOf(userType.name()));
+    }
+}
@@ -1,63 +1,244 @@
 package matheus_henrique.TechManage.Services;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
+import matheus_henrique.TechManage.Exceptions.UserAlreadyExistsException;
+import matheus_henrique.TechManage.Exceptions.UserVersionMismatchException;
+import matheus_henrique.TechManage.Infra.PhoneNormalizer;
+import matheus_henrique.TechManage.Infra.UniquenessFilter;
+import matheus_henrique.TechManage.Infra.UserCache;
 import matheus_henrique.TechManage.Models.User;
 import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import matheus_henrique.TechManage.Models.UserCursor;
+import matheus_henrique.TechManage.Models.UserFilter;
+import matheus_henrique.TechManage.Models.UserPage;
+import matheus_henrique.TechManage.Models.UserPatch;
+import matheus_henrique.TechManage.Models.UserView;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Service
 @AllArgsConstructor
 public class UserService {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BULK_SIZE = 10_000;
+    public static final int MAX_LOOKUP_SIZE = 10_000;
+    public static final int DEFAULT_SEARCH_SIZE = 20;
+    public static final int MAX_SEARCH_SIZE = 100;
+    public static final int MAX_SEARCH_OFFSET = 10_000;
+    // quantos valores vão em cada IN (...) das validações em lote
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
     private UserRepository repository;
+    private Validator validator;
+    private UserCache cache;
+    private ApplicationEventPublisher events;
+    private UniquenessFilter uniqueness;
 
     public User getUserById(long id) {
-        Optional<User> userOptional = repository.findById(id);
-        return userOptional.orElse(null);
+        return cache.get(id, key -> {
+            Optional<User> userOptional = repository.findById(key);
+            return userOptional.orElse(null);
+        });
+    }
+    // Para os GETs: sem entidade e sem o cache de entidades, que fica para as escritas.
+    // O JSON de GET /api/users/{id} já é guardado pronto no ResponseCache
+    public UserView getUserView(long id) {
+        return repository.findViewById(id).orElse(null);
+    }
+    // Vários usuários numa consulta só (um IN por bloco de ids), indexados pelo id.
+    // Ids que não existem não aparecem no mapa
+    public Map<Long, UserView> getUserViews(Collection<Long> ids) {
+        List<Long> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        Map<Long, UserView> users = new HashMap<>();
+        for (int i = 0; i < distinct.size(); i += IN_CLAUSE_CHUNK)
+            for (UserView user : repository.findViewsByIdIn(distinct.subList(i, Math.min(i + IN_CLAUSE_CHUNK, distinct.size()))))
+                users.put(user.id(), user);
+        return users;
+    }
+    public List<UserView> getUsersByEmail(String email) {
+        return repository.findViewsByEmailIgnoreCase(email);
+    }
+    public UserView getUserByPhone(String phone) {
+        return repository.findViewByPhone(PhoneNormalizer.normalize(phone)).orElse(null);
     }
     public List<User> getAllUser() {
         return repository.findAll();
     }
+    public UserPage getUsersPage(UserFilter filter, UserCursor after, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+
+        // busca um registro a mais só para saber se existe uma próxima página
+        var users = repository.findPage(filter, after, pageSize + 1);
+        boolean hasNext = users.size() > pageSize;
+        var page = (hasNext ? users.subList(0, pageSize) : users).stream()
+                .map(UserView::toModel)
+                .toList();
+        return new UserPage(page, hasNext ? UserCursor.of(filter.sortBy(), users.get(pageSize - 1)) : null);
+    }
+    // Um UPDATE por id depois da leitura travada da linha: a leitura diz se o usuário existia e as
+    // constraints do banco cuidam de email e telefone repetidos. Como o UPDATE não passa pela entidade,
+    // a validação que o Hibernate faria no flush é feita aqui antes.
+    // Se user.version vier preenchida (If-Match), só atualiza se o usuário ainda estiver nela;
+    // o usuário devolvido leva a versão nova, a seguinte à da linha lida antes do UPDATE
     public User updateUser(User user) {
-        if (repository.existsById(user.getId())) {
-            return repository.save(user);
+        var violations = validator.validate(user);
+        if (!violations.isEmpty())
+            throw new ConstraintViolationException(violations);
+
+        Long expectedVersion = user.getVersion();
+        Optional<UserView> previous;
+        try {
+            previous = repository.updateById(user.getId(), user.getFullName(), user.getEmail(),
+                    user.getPhone(), user.getBirthDate(), user.getUserType(), expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            throw translate(e);
+        }
+        if (previous.isEmpty()) {
+            checkVersionConflict(user.getId(), expectedVersion);
+            return null;
         }
-        return null;
+        user.setVersion(previous.get().version() + 1);
+        // só depois do commit, para nenhuma leitura em andamento recolocar o valor antigo
+        cache.invalidate(user.getId());
+        events.publishEvent(UserChangedEvent.updated(previous.get(), UserView.of(user)));
+        return user;
     }
+    // Como no PUT, mas o UPDATE só escreve as colunas enviadas e só elas são validadas.
+    // Email e telefone continuam garantidos pelas constraints, sem buscar por eles antes
+    public User patchUser(long id, UserPatch patch) {
+        return patchUser(id, patch, null);
+    }
+    public User patchUser(long id, UserPatch patch, Long expectedVersion) {
+        Set<ConstraintViolation<User>> violations = new LinkedHashSet<>();
+        patch.changes().forEach((field, value) -> violations.addAll(validator.validateValue(User.class, field, value)));
+        if (!violations.isEmpty())
+            throw new ConstraintViolationException(violations);
+
+        if (patch.isEmpty()) {
+            var user = getUserById(id);
+            if (user != null && expectedVersion != null && !expectedVersion.equals(user.getVersion()))
+                throw new UserVersionMismatchException();
+            return user;
+        }
+
+        Optional<UserView> previous;
+        try {
+            previous = repository.updateFields(id, patch, expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            throw translate(e);
+        }
+        if (previous.isEmpty()) {
+            checkVersionConflict(id, expectedVersion);
+            return null;
+        }
+        cache.invalidate(id);
+        // o evento leva o usuário como estava e como ficou, sem reler a linha
+        events.publishEvent(UserChangedEvent.updated(previous.get(), patch.applyTo(previous.get())));
+        return getUserById(id);
+    }
+    // A unicidade de email e telefone fica a cargo das constraints do banco: um único insert
+    // no caso comum, e correto mesmo com duas requisições iguais chegando ao mesmo tempo.
+    // Não há o que invalidar no cache ao criar, usuários inexistentes nunca vão para ele
     public User createUser(User newUser) {
-        return repository.save(newUser);
+        try {
+            var created = repository.saveAndFlush(newUser);
+            events.publishEvent(UserChangedEvent.created(List.of(UserView.of(created))));
+            return created;
+        } catch (DataIntegrityViolationException e) {
+            throw translate(e);
+        }
+    }
+    public List<Long> createUsers(List<User> newUsers) {
+        try {
+            repository.insertInBatches(newUsers);
+        } catch (DataIntegrityViolationException e) {
+            throw translate(e);
+        }
+        var event = UserChangedEvent.created(newUsers.stream().map(UserView::of).toList());
+        events.publishEvent(event);
+        return event.ids();
     }
     public boolean deleteUser(long id) {
-        if (repository.existsById(id)) {
-            repository.deleteById(id);
-            return !repository.existsById(id);
+        return deleteUser(id, null);
+    }
+    public boolean deleteUser(long id, Long expectedVersion) {
+        Optional<UserView> deleted = repository.deleteRowById(id, expectedVersion);
+        if (deleted.isEmpty()) {
+            checkVersionConflict(id, expectedVersion);
+            return false;
         }
-        return false;
+        cache.invalidate(id);
+        events.publishEvent(UserChangedEvent.deleted(deleted.get()));
+        return true;
     }
 
     // Para validações
-    public boolean emailAlreadyExists(String email){
-        return repository.findByEmail(email) == null ? false : true;
+    public List<String> validateNewUsers(List<User> newUsers) {
+        List<String> errors = new ArrayList<>();
+        if (newUsers.size() > MAX_BULK_SIZE) {
+            errors.add("Máximo de " + MAX_BULK_SIZE + " usuários por requisição!");
+            return errors;
+        }
+
+        // posição de cada email/telefone no lote, também usada para achar repetidos dentro dele
+        Map<String, Integer> emails = new HashMap<>();
+        Map<String, Integer> phones = new HashMap<>();
+        for (int i = 0; i < newUsers.size(); i++) {
+            User user = newUsers.get(i);
+            for (var violation : validator.validate(user))
+                errors.add("Usuário " + i + ": " + violation.getMessage());
+
+            if (user.getEmail() != null) {
+                Integer first = emails.putIfAbsent(user.getEmail(), i);
+                if (first != null)
+                    errors.add("Usuário " + i + ": Email repetido no lote (usuário " + first + ")!");
+            }
+            if (user.getPhone() != null) {
+                // o banco só guarda telefones normalizados, então é assim que eles se repetem
+                Integer first = phones.putIfAbsent(PhoneNormalizer.normalize(user.getPhone()), i);
+                if (first != null)
+                    errors.add("Usuário " + i + ": Telefone repetido no lote (usuário " + first + ")!");
+            }
+        }
+
+        // só vão ao banco os valores que o filtro não descarta
+        for (String email : findExisting(emails.keySet(), uniqueness::mightContainEmail, repository::findExistingEmails))
+            errors.add("Usuário " + emails.get(email) + ": " + UserAlreadyExistsException.EMAIL_MESSAGE);
+        for (String phone : findExisting(phones.keySet(), uniqueness::mightContainPhone, repository::findExistingPhones))
+            errors.add("Usuário " + phones.get(phone) + ": " + UserAlreadyExistsException.PHONE_MESSAGE);
+
+        return errors;
     }
-    public boolean phoneAlreadyExists(String phone){
-        return repository.findByPhone(phone) == null ? false : true;
+
+    // Nenhuma linha afetada: o usuário não existe ou, numa escrita condicional, mudou de versão.
+    // A consulta extra só acontece nesse caso, o caminho comum não passa por aqui
+    private void checkVersionConflict(long id, Long expectedVersion) {
+        if (expectedVersion != null && repository.existsById(id))
+            throw new UserVersionMismatchException();
     }
-    public boolean emailAlreadyExists(String email, long Id){
-        var response = repository.findByEmail(email);
-        if(response == null)
-            return false;
-        else if (response.getId() == Id)
-            return false;
-        else return true;
+
+    private static RuntimeException translate(DataIntegrityViolationException e) {
+        var alreadyExists = UserAlreadyExistsException.from(e);
+        return alreadyExists != null ? alreadyExists : e;
     }
-    public boolean phoneAlreadyExists(String phone, long Id){
-        var response = repository.findByPhone(phone);
-        if(response == null)
-            return false;
-        else if (response.getId() == Id)
-            return false;
-        else return true;
+
+    private List<String> findExisting(Collection<String> values, Predicate<String> mightExist,
+                                      Function<Collection<String>, List<String>> query) {
+        List<String> candidates = values.stream().filter(mightExist).toList();
+        List<String> existing = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i += IN_CLAUSE_CHUNK)
+            existing.addAll(query.apply(candidates.subList(i, Math.min(i + IN_CLAUSE_CHUNK, candidates.size()))));
+        uniqueness.falsePositive(candidates.size() - existing.size());
+        return existing;
     }
-}
\ No newline at end of file
+}
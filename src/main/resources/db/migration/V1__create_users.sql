@@ -0,0 +1,23 @@
+-- Ids reservados de 50 em 50 (pooled optimizer), para os inserts irem em batches JDBC
+create sequence users_seq start with 1 increment by 50;
+
+create table users (
+    id         bigint       not null,
+    full_name  varchar(255) not null,
+    email      varchar(255) not null,
+    phone      varchar(255) not null,
+    birth_date date         not null,
+    user_type  varchar(255) not null check (user_type in ('ADMIN', 'EDITOR', 'VIEWER')),
+    version    bigint       not null default 0,
+    primary key (id),
+    -- os nomes são usados para traduzir a violação na mensagem de erro certa (UserAlreadyExistsException)
+    constraint uk_users_email unique (email),
+    constraint uk_users_phone unique (phone)
+);
+
+-- um índice por combinação de filtro + ordenação do GET /api/users, sempre terminando no id (cursor)
+create index idx_users_full_name on users (full_name, id);
+create index idx_users_birth_date on users (birth_date, id);
+create index idx_users_type_id on users (user_type, id);
+create index idx_users_type_full_name on users (user_type, full_name, id);
+create index idx_users_type_birth_date on users (user_type, birth_date, id);
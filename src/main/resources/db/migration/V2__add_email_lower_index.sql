@@ -0,0 +1,5 @@
+-- Email sem diferenciar maiúsculas para GET /api/users/by-email/{email}. O H2 não indexa
+-- expressões, então lower(email) vira uma coluna gerada pelo próprio banco com o índice nela.
+-- Não é unique: a constraint de email continua diferenciando maiúsculas como antes
+alter table users add column email_lower varchar(255) generated always as (lower(email));
+create index idx_users_email_lower on users (email_lower, id);
@@ -2,9 +2,25 @@ package matheus_henrique.TechManage.Controllers;
 
 import gen.model.ResponseModel;
 import gen.model.UserModel;
+import gen.model.UserStatsModel;
+import gen.model.UserPatchModel;
+import matheus_henrique.TechManage.Enums.EUserSortField;
 import matheus_henrique.TechManage.Enums.EUserType;
+import matheus_henrique.TechManage.Exceptions.UserAlreadyExistsException;
+import matheus_henrique.TechManage.Exceptions.UserVersionMismatchException;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Infra.ResponseCache;
+import matheus_henrique.TechManage.Infra.UserChangeFeed;
+import matheus_henrique.TechManage.Infra.UserSearchIndex;
+import matheus_henrique.TechManage.Infra.UserStats;
 import matheus_henrique.TechManage.Models.User;
+import matheus_henrique.TechManage.Models.UserCursor;
+import matheus_henrique.TechManage.Models.UserFilter;
+import matheus_henrique.TechManage.Models.UserPage;
+import matheus_henrique.TechManage.Models.UserPatch;
+import matheus_henrique.TechManage.Models.UserSearchPage;
+import matheus_henrique.TechManage.Models.UserView;
 import matheus_henrique.TechManage.Services.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,17 +32,25 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -49,6 +73,8 @@ public class UserControllerTest {
 
         ReflectionTestUtils.setField(userService, "repository", repo);
         ReflectionTestUtils.setField(userController, "service", userService);
+        ReflectionTestUtils.setField(userController, "responseCache", new ResponseCache(
+                JsonMapper.builder().findAndAddModules().build(), true, DataSize.ofMegabytes(1), Duration.ofMinutes(1)));
 
         testUser = User.builder()
                 .id(1L)
@@ -57,6 +83,7 @@ public class UserControllerTest {
                 .phone("+55 11 99999-9999")
                 .birthDate(LocalDate.of(1990, 1, 1))
                 .userType(EUserType.ADMIN)
+                .version(0L)
                 .build();
 
         testUserModel = new UserModel()
@@ -71,7 +98,6 @@ public class UserControllerTest {
     @Test
     void addUser_ValidUser_ReturnsOkResponse() {
         // Arrange
-        when(userService.emailAlreadyExists(anyString())).thenReturn(false);
         when(userService.createUser(any(User.class))).thenReturn(testUser);
 
         // Act
@@ -82,14 +108,15 @@ public class UserControllerTest {
         assertNotNull(response.getBody());
         assertNotNull(response.getBody().getData());
         assertEquals(1, response.getBody().getData().size());
-        verify(userService, times(1)).emailAlreadyExists("test@example.com");
-        verify(userService, times(1)).createUser(testUser);
+        verify(userService, times(1)).createUser(argThat(user ->
+                user.getEmail().equals("test@example.com") && user.getPhone().equals("+5511999999999")));
     }
 
     @Test
     void addUser_ExistingEmail_ReturnsBadRequest() {
         // Arrange
-        when(userService.emailAlreadyExists(anyString())).thenReturn(true);
+        when(userService.createUser(any(User.class)))
+                .thenThrow(new UserAlreadyExistsException(UserAlreadyExistsException.EMAIL_MESSAGE, null));
 
         // Act
         ResponseEntity<ResponseModel> response = userController.addUser(testUserModel);
@@ -99,18 +126,48 @@ public class UserControllerTest {
         assertNotNull(response.getBody());
         assertNotNull(response.getBody().getErrors());
         assertEquals(1, response.getBody().getErrors().size());
-        assertEquals("Email já existe no banco de dados", response.getBody().getErrors().get(0));
-        verify(userService, times(1)).emailAlreadyExists("test@example.com");
-        verify(userService, never()).createUser(any(User.class));
+        assertEquals("Email já existe no banco de dados!", response.getBody().getErrors().get(0));
+        verify(userService, times(1)).createUser(any(User.class));
+    }
+
+    @Test
+    void addUsers_ValidBatch_ReturnsCreatedIds() {
+        // Arrange
+        when(userService.validateNewUsers(anyList())).thenReturn(List.of());
+        when(userService.createUsers(anyList())).thenReturn(List.of(1L));
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.addUsers(List.of(testUserModel));
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(List.of(1L), response.getBody().getData());
+        verify(userService, times(1)).createUsers(anyList());
+    }
+
+    @Test
+    void addUsers_InvalidBatch_ReturnsErrorsAndInsertsNothing() {
+        // Arrange
+        when(userService.validateNewUsers(anyList())).thenReturn(List.of("Usuário 0: Email já existe no banco de dados!"));
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.addUsers(List.of(testUserModel));
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().getErrors().size());
+        verify(userService, never()).createUsers(anyList());
     }
 
     @Test
     void deleteUser_ExistingUser_ReturnsOkResponse() {
         // Arrange
-        when(userService.deleteUser(1L)).thenReturn(true);
+        when(userService.deleteUser(1L, null)).thenReturn(true);
 
         // Act
-        ResponseEntity<ResponseModel> response = userController.deleteUser(1L);
+        ResponseEntity<ResponseModel> response = userController.deleteUser(1L, null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -118,16 +175,16 @@ public class UserControllerTest {
         assertNotNull(response.getBody().getData());
         assertEquals(1, response.getBody().getData().size());
         assertEquals("Usuário foi deletado!", response.getBody().getData().get(0));
-        verify(userService, times(1)).deleteUser(1L);
+        verify(userService, times(1)).deleteUser(1L, null);
     }
 
     @Test
     void deleteUser_NonExistingUser_ReturnsBadRequest() {
         // Arrange
-        when(userService.deleteUser(99L)).thenReturn(false);
+        when(userService.deleteUser(99L, null)).thenReturn(false);
 
         // Act
-        ResponseEntity<ResponseModel> response = userController.deleteUser(99L);
+        ResponseEntity<ResponseModel> response = userController.deleteUser(99L, null);
 
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
@@ -135,32 +192,63 @@ public class UserControllerTest {
         assertNotNull(response.getBody().getErrors());
         assertEquals(1, response.getBody().getErrors().size());
         assertEquals("Usuário não existe!", response.getBody().getErrors().get(0));
-        verify(userService, times(1)).deleteUser(99L);
+        verify(userService, times(1)).deleteUser(99L, null);
     }
 
     @Test
     void getUser_ExistingId_ReturnsOkResponse() {
         // Arrange
-        when(userService.getUserById(1L)).thenReturn(testUser);
+        when(userService.getUserView(1L)).thenReturn(view(testUser));
 
         // Act
-        ResponseEntity<ResponseModel> response = userController.getUser(1L);
+        ResponseEntity<ResponseModel> response = userController.getUser(1L, null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertNotNull(response.getBody().getData());
         assertEquals(1, response.getBody().getData().size());
-        verify(userService, times(1)).getUserById(1L);
+        verify(userService, times(1)).getUserView(1L);
+    }
+
+    @Test
+    void getUser_SameETag_ReturnsNotModifiedFromCache() {
+        // Arrange
+        when(userService.getUserView(1L)).thenReturn(view(testUser));
+        String etag = userController.getUser(1L, null).getHeaders().getETag();
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.getUser(1L, etag);
+
+        // Assert
+        assertNotNull(etag);
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertNull(response.getBody());
+        verify(userService, times(1)).getUserView(1L);
+    }
+
+    @Test
+    void getUser_DifferentETag_ReturnsOkResponse() {
+        // Arrange
+        when(userService.getUserView(1L)).thenReturn(view(testUser));
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.getUser(1L, "\"outdated\"");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getHeaders().getETag());
+        assertEquals(1, response.getBody().getData().size());
     }
 
     @Test
     void getUser_NonExistingId_ReturnsBadRequest() {
         // Arrange
-        when(userService.getUserById(99L)).thenReturn(null);
+        when(userService.getUserView(99L)).thenReturn(null);
 
         // Act
-        ResponseEntity<ResponseModel> response = userController.getUser(99L);
+        ResponseEntity<ResponseModel> response = userController.getUser(99L, null);
 
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
@@ -168,7 +256,7 @@ public class UserControllerTest {
         assertNotNull(response.getBody().getErrors());
         assertEquals(1, response.getBody().getErrors().size());
         assertEquals("Usuário não foi encontrado!!", response.getBody().getErrors().get(0));
-        verify(userService, times(1)).getUserById(99L);
+        verify(userService, times(1)).getUserView(99L);
     }
 
     @Test
@@ -183,94 +271,315 @@ public class UserControllerTest {
                 .userType(EUserType.EDITOR)
                 .build();
 
-        List<User> userList = Arrays.asList(testUser, secondUser);
-        when(userService.getAllUser()).thenReturn(userList);
+        List<UserModel> userList = Arrays.asList(view(testUser).toModel(), view(secondUser).toModel());
+        when(userService.getUsersPage(UserFilter.NONE, null, 100)).thenReturn(new UserPage(userList, null));
 
         // Act
-        ResponseEntity<ResponseModel> response = userController.getUsers();
+        ResponseEntity<ResponseModel> response = userController.getUsers(100, null, null, null, null, null, null, null, null, null);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertNotNull(response.getBody().getData());
         assertEquals(1, response.getBody().getData().size()); // The data contains a single list
-        verify(userService, times(1)).getAllUser();
+        assertNull(response.getBody().getNextCursor());
+        verify(userService, times(1)).getUsersPage(UserFilter.NONE, null, 100);
+    }
+
+    @Test
+    void getUsers_MorePagesAvailable_ReturnsNextCursor() {
+        // Arrange
+        var next = new UserCursor(EUserSortField.ID, null, 1L);
+        when(userService.getUsersPage(UserFilter.NONE, null, 1)).thenReturn(new UserPage(List.of(view(testUser).toModel()), next));
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.getUsers(1, null, null, null, null, null, null, null, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(next.encode(), response.getBody().getNextCursor());
+        verify(userService, times(1)).getUsersPage(UserFilter.NONE, null, 1);
     }
 
     @Test
     void getUsers_NoUsers_ReturnsNoContent() {
         // Arrange
-        when(userService.getAllUser()).thenReturn(Collections.emptyList());
+        when(userService.getUsersPage(UserFilter.NONE, null, 100)).thenReturn(new UserPage(Collections.emptyList(), null));
 
         // Act
-        ResponseEntity<ResponseModel> response = userController.getUsers();
+        ResponseEntity<ResponseModel> response = userController.getUsers(100, null, null, null, null, null, null, null, null, null);
 
         // Assert
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
-        verify(userService, times(1)).getAllUser();
+        verify(userService, times(1)).getUsersPage(UserFilter.NONE, null, 100);
+    }
+
+    @Test
+    void getUsers_WithFilters_PassesThemToService() {
+        // Arrange
+        UserFilter expectedFilter = new UserFilter(EUserType.ADMIN, LocalDate.of(1980, 1, 1), null, "Test",
+                EUserSortField.FULL_NAME, Sort.Direction.DESC);
+        when(userService.getUsersPage(expectedFilter, null, 10)).thenReturn(new UserPage(List.of(view(testUser).toModel()), null));
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.getUsers(10, null, "ADMIN",
+                LocalDate.of(1980, 1, 1), null, "Test", "fullName", "desc", null, null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(userService, times(1)).getUsersPage(expectedFilter, null, 10);
+    }
+
+    @Test
+    void getUsers_WithIds_ReturnsUsersInRequestOrder() {
+        // Arrange
+        User secondUser = User.builder()
+                .id(2L)
+                .fullName("Second User")
+                .email("second@example.com")
+                .phone("+55 11 88888-8888")
+                .birthDate(LocalDate.of(1995, 5, 5))
+                .userType(EUserType.EDITOR)
+                .version(0L)
+                .build();
+        when(userService.getUserViews(anyCollection()))
+                .thenReturn(Map.of(1L, view(testUser), 2L, view(secondUser)));
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.getUsers(null, null, null, null, null, null, null, null,
+                List.of(2L, 99L, 1L), null);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2L, ((UserModel) response.getBody().getData().get(0)).getId());
+        assertEquals(1L, ((UserModel) response.getBody().getData().get(1)).getId());
+        assertEquals(List.of("Usuário não foi encontrado: 99"), response.getBody().getErrors());
+        verify(userService, never()).getUsersPage(any(), any(), any());
+    }
+
+    @Test
+    void lookupUsers_CachedUser_LoadsOnlyTheOthers() {
+        // Arrange
+        when(userService.getUserView(1L)).thenReturn(view(testUser));
+        userController.getUser(1L, null);
+        when(userService.getUserViews(anyCollection())).thenReturn(Map.of());
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.lookupUsers(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().getData().size());
+        verify(userService, times(1)).getUserViews(List.of(2L));
+    }
+
+    @Test
+    void lookupUsers_NoIds_ReturnsBadRequest() {
+        // Act
+        ResponseEntity<ResponseModel> response = userController.lookupUsers(List.of());
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void getUsersByEmail_NoUser_ReturnsBadRequest() {
+        // Arrange
+        when(userService.getUsersByEmail("missing@example.com")).thenReturn(List.of());
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.getUsersByEmail("missing@example.com");
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("Usuário não foi encontrado!!", response.getBody().getErrors().get(0));
+    }
+
+    @Test
+    void getUserByPhone_ExistingPhone_ReturnsUser() {
+        // Arrange
+        when(userService.getUserByPhone("+55 11 99999-9999")).thenReturn(view(testUser));
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.getUserByPhone("+55 11 99999-9999");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1L, ((UserModel) response.getBody().getData().get(0)).getId());
+    }
+
+    @Test
+    void searchUsers_IndexNotBuiltYet_ReturnsServiceUnavailable() {
+        // Arrange
+        UserSearchIndex searchIndex = Mockito.mock(UserSearchIndex.class);
+        ReflectionTestUtils.setField(userController, "searchIndex", searchIndex);
+        when(searchIndex.search("test", 0, UserService.DEFAULT_SEARCH_SIZE)).thenReturn(null);
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.searchUsers("test", null, null);
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void searchUsers_RankedIds_ReturnsUsersInThatOrder() {
+        // Arrange
+        UserSearchIndex searchIndex = Mockito.mock(UserSearchIndex.class);
+        ReflectionTestUtils.setField(userController, "searchIndex", searchIndex);
+        when(searchIndex.search("test", 0, 1)).thenReturn(new UserSearchPage(List.of(1L), 1L));
+        when(userService.getUserViews(List.of(1L))).thenReturn(Map.of(1L, view(testUser)));
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.searchUsers("test", 0, 1);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1L, ((UserModel) response.getBody().getData().get(0)).getId());
+        assertEquals("1", response.getBody().getNextCursor());
+    }
+
+    @Test
+    void getUserStats_NotLoadedYet_ReturnsServiceUnavailable() {
+        // Arrange
+        UserStats stats = Mockito.mock(UserStats.class);
+        ReflectionTestUtils.setField(userController, "stats", stats);
+        when(stats.snapshot()).thenReturn(null);
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.getUserStats();
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void getUserStats_Loaded_ReturnsSnapshot() {
+        // Arrange
+        UserStats stats = Mockito.mock(UserStats.class);
+        ReflectionTestUtils.setField(userController, "stats", stats);
+        UserStatsModel snapshot = new UserStatsModel().total(3L);
+        when(stats.snapshot()).thenReturn(snapshot);
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.getUserStats();
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertSame(snapshot, response.getBody().getData().get(0));
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void streamChanges_TooManySubscribers_ReturnsServiceUnavailable() {
+        // Arrange
+        UserChangeFeed changeFeed = Mockito.mock(UserChangeFeed.class);
+        ReflectionTestUtils.setField(userController, "changeFeed", changeFeed);
+        when(changeFeed.subscribe(5L)).thenReturn(null);
+
+        // Act
+        ResponseEntity<SseEmitter> response = userController.streamChanges(5L, null);
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertNotNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void streamChanges_LastEventId_TakesPrecedenceOverSince() {
+        // Arrange
+        UserChangeFeed changeFeed = Mockito.mock(UserChangeFeed.class);
+        ReflectionTestUtils.setField(userController, "changeFeed", changeFeed);
+        SseEmitter emitter = new SseEmitter();
+        when(changeFeed.subscribe(9L)).thenReturn(emitter);
+
+        // Act
+        ResponseEntity<SseEmitter> response = userController.streamChanges(5L, "9");
+        ResponseEntity<SseEmitter> invalid = userController.streamChanges(5L, "abc");
+
+        // Assert
+        assertSame(emitter, response.getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, invalid.getStatusCode());
+    }
+
+    @Test
+    void getUsers_InvalidSort_ReturnsBadRequest() {
+        // Act
+        ResponseEntity<ResponseModel> response = userController.getUsers(10, null, null, null, null, null, "email", null, null, null);
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().getErrors().size());
+        verifyNoInteractions(userService);
     }
 
     @Test
     void updateUser_ValidUpdate_ReturnsOkResponse() {
         // Arrange
-        when(userService.getUserById(1L)).thenReturn(testUser);
-        when(userService.emailAlreadyExists(anyString())).thenReturn(false);
         when(userService.updateUser(any(User.class))).thenReturn(testUser);
 
         UserModel updatedModel = new UserModel()
                 .fullName("Updated Name")
-                .email("test@example.com") // Same email
+                .email("test@example.com")
                 .phone("+55 11 99999-9999")
                 .birthDate(LocalDate.of(1990, 1, 1))
                 .userType(UserModel.UserTypeEnum.EDITOR);
 
         // Act
-        ResponseEntity<ResponseModel> response = userController.updateUser(1L, updatedModel);
+        ResponseEntity<ResponseModel> response = userController.updateUser(1L, null, updatedModel);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertNotNull(response.getBody().getData());
         assertEquals(1, response.getBody().getData().size());
-        verify(userService, times(1)).getUserById(1L);
-        verify(userService, never()).emailAlreadyExists(anyString()); // Same email, no need to check
-        verify(userService, times(1)).updateUser(any(User.class));
+        verify(userService, never()).getUserById(anyLong());
+        verify(userService, times(1)).updateUser(argThat(user -> user.getId() == 1L));
     }
 
     @Test
     void updateUser_ChangedEmailAlreadyExists_ReturnsBadRequest() {
         // Arrange
-        when(userService.getUserById(1L)).thenReturn(testUser);
-        when(userService.emailAlreadyExists("new@example.com")).thenReturn(true);
+        when(userService.updateUser(any(User.class)))
+                .thenThrow(new UserAlreadyExistsException(UserAlreadyExistsException.EMAIL_MESSAGE, null));
 
         UserModel updatedModel = new UserModel()
                 .fullName("Updated Name")
-                .email("new@example.com") // Different email
+                .email("new@example.com")
                 .phone("+55 11 99999-9999")
                 .birthDate(LocalDate.of(1990, 1, 1))
                 .userType(UserModel.UserTypeEnum.EDITOR);
 
         // Act
-        ResponseEntity<ResponseModel> response = userController.updateUser(1L, updatedModel);
+        ResponseEntity<ResponseModel> response = userController.updateUser(1L, null, updatedModel);
 
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertNotNull(response.getBody());
         assertNotNull(response.getBody().getErrors());
         assertEquals(1, response.getBody().getErrors().size());
-        assertEquals("Já existe um usuário com este email!", response.getBody().getErrors().get(0));
-        verify(userService, times(1)).getUserById(1L);
-        verify(userService, times(1)).emailAlreadyExists("new@example.com");
-        verify(userService, never()).updateUser(any(User.class));
+        assertEquals(UserAlreadyExistsException.EMAIL_MESSAGE, response.getBody().getErrors().get(0));
+        verify(userService, times(1)).updateUser(any(User.class));
     }
 
     @Test
     void updateUser_NonExistingUser_ReturnsBadRequest() {
         // Arrange
-        when(userService.getUserById(99L)).thenReturn(null);
+        when(userService.updateUser(any(User.class))).thenReturn(null);
 
         // Act
-        ResponseEntity<ResponseModel> response = userController.updateUser(99L, testUserModel);
+        ResponseEntity<ResponseModel> response = userController.updateUser(99L, null, testUserModel);
 
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
@@ -278,8 +587,101 @@ public class UserControllerTest {
         assertNotNull(response.getBody().getErrors());
         assertEquals(1, response.getBody().getErrors().size());
         assertEquals("User not found with ID: 99", response.getBody().getErrors().get(0));
-        verify(userService, times(1)).getUserById(99L);
-        verify(userService, never()).emailAlreadyExists(anyString());
-        verify(userService, never()).updateUser(any(User.class));
+        verify(userService, never()).getUserById(anyLong());
+        verify(userService, times(1)).updateUser(any(User.class));
+    }
+
+    @Test
+    void patchUser_SparseBody_SendsOnlyPresentFields() {
+        // Arrange
+        when(userService.patchUser(eq(1L), any(UserPatch.class), isNull())).thenReturn(testUser);
+
+        UserPatchModel patchModel = new UserPatchModel()
+                .phone("+55 (11) 88888-8888")
+                .userType(UserPatchModel.UserTypeEnum.VIEWER);
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.patchUser(1L, null, patchModel);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().getData().size());
+        verify(userService, times(1)).patchUser(1L, new UserPatch(Map.of(
+                UserPatch.PHONE, "+5511888888888",
+                UserPatch.USER_TYPE, EUserType.VIEWER)), null);
+    }
+
+    @Test
+    void patchUser_NonExistingUser_ReturnsBadRequest() {
+        // Arrange
+        when(userService.patchUser(eq(99L), any(UserPatch.class), isNull())).thenReturn(null);
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.patchUser(99L, null, new UserPatchModel().fullName("Nobody"));
+
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals("User not found with ID: 99", response.getBody().getErrors().get(0));
+    }
+
+    @Test
+    void updateUser_IfMatch_SendsVersionAndReturnsNewETag() {
+        // Arrange
+        when(userService.updateUser(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            assertEquals(3L, user.getVersion());
+            user.setVersion(user.getVersion() + 1);
+            return user;
+        });
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.updateUser(1L, "\"3\"", testUserModel);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"4\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void updateUser_VersionMismatch_ReturnsPreconditionFailed() {
+        // Arrange
+        when(userService.updateUser(any(User.class))).thenThrow(new UserVersionMismatchException());
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.updateUser(1L, "\"3\"", testUserModel);
+
+        // Assert
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertEquals(UserVersionMismatchException.MESSAGE, response.getBody().getErrors().get(0));
+    }
+
+    @Test
+    void deleteUser_WeakETag_ReturnsPreconditionFailedWithoutDeleting() {
+        // Act
+        ResponseEntity<ResponseModel> response = userController.deleteUser(1L, "W/\"3\"");
+
+        // Assert
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        verify(userService, never()).deleteUser(anyLong(), any());
+    }
+
+    @Test
+    void getUser_ETagIsTheUserVersion() {
+        // Arrange
+        testUser.setVersion(7L);
+        when(userService.getUserView(1L)).thenReturn(view(testUser));
+
+        // Act
+        ResponseEntity<ResponseModel> response = userController.getUser(1L, null);
+
+        // Assert
+        assertEquals("\"7\"", response.getHeaders().getETag());
+    }
+
+    private static UserView view(User user) {
+        return new UserView(user.getId(), user.getFullName(), user.getEmail(), user.getPhone(), user.getBirthDate(),
+                user.getUserType(), user.getVersion());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,178 @@
+package matheus_henrique.TechManage.Infra;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Models.User;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DataSeederTest {
+    private static final URI REMOTE = URI.create("http://mock.example.com/users");
+
+    @Mock
+    private UserRepository repository;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final List<User> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // simula o banco atribuindo ids em sequência
+        lenient().when(repository.insertInBatches(anyList())).thenAnswer(invocation -> {
+            List<User> chunk = invocation.getArgument(0);
+            for (User user : chunk) {
+                user.setId((long) inserted.size() + 1);
+                inserted.add(user);
+            }
+            return chunk.size();
+        });
+    }
+
+    @Test
+    void seed_RemoteAnswers_InsertsRemoteUsers() throws Exception {
+        // Arrange
+        String json = """
+                [{"fullName":"Remote User","email":"remote@example.com","phone":"+5511999999999","birthDate":"1990-01-01","userType":"ADMIN"},
+                 {"fullName":"Other User","email":"other@example.com","phone":"+5511888888888","birthDate":"1995-05-05","userType":"VIEWER"}]
+                """;
+        when(restTemplate.execute(eq(REMOTE), eq(HttpMethod.GET), isNull(), any(ResponseExtractor.class)))
+                .thenAnswer(invocation -> {
+                    ClientHttpResponse response = mock(ClientHttpResponse.class);
+                    when(response.getBody()).thenReturn(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+                    return invocation.<ResponseExtractor<?>>getArgument(3).extractData(response);
+                });
+        var seeder = new DataSeeder(repository, objectMapper, restTemplate, events, true, REMOTE);
+
+        // Act
+        seeder.seed();
+
+        // Assert
+        assertEquals(2, seeder.done().get());
+        assertEquals("Remote User", inserted.get(0).getFullName());
+        ArgumentCaptor<UserChangedEvent> event = ArgumentCaptor.forClass(UserChangedEvent.class);
+        verify(events, times(1)).publishEvent(event.capture());
+        assertEquals(List.of(1L, 2L), event.getValue().ids());
+        assertEquals("Remote User", event.getValue().users().get(0).fullName());
+        assertEquals(Status.UP, seeder.health().getStatus());
+    }
+
+    @Test
+    void seed_RemoteTimesOut_UsesFallbackFile() throws Exception {
+        // Arrange
+        when(restTemplate.execute(eq(REMOTE), eq(HttpMethod.GET), isNull(), any(ResponseExtractor.class)))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+        var seeder = new DataSeeder(repository, objectMapper, restTemplate, events, true, REMOTE);
+
+        // Act
+        seeder.seed();
+
+        // Assert
+        assertEquals(300, seeder.done().get());
+        assertEquals(300, inserted.size());
+        assertEquals(Status.UP, seeder.health().getStatus());
+    }
+
+    @Test
+    void seed_RemoteDisabled_UsesFallbackFileOnly() throws Exception {
+        // Arrange
+        var seeder = new DataSeeder(repository, objectMapper, restTemplate, events, true, null);
+
+        // Act
+        seeder.seed();
+
+        // Assert
+        assertEquals(300, seeder.done().get());
+        verifyNoInteractions(restTemplate);
+        ArgumentCaptor<UserChangedEvent> event = ArgumentCaptor.forClass(UserChangedEvent.class);
+        verify(events, times(1)).publishEvent(event.capture());
+        assertEquals(300, event.getValue().ids().size());
+    }
+
+    @Test
+    void run_InBackground_ReportsOutOfServiceUntilDone() throws Exception {
+        // Arrange
+        var seeder = new DataSeeder(repository, objectMapper, restTemplate, events, true, null);
+        assertEquals(Status.OUT_OF_SERVICE, seeder.health().getStatus());
+
+        // Act
+        seeder.run(null);
+
+        // Assert
+        assertEquals(300, seeder.done().get(10, TimeUnit.SECONDS));
+        assertEquals(Status.UP, seeder.health().getStatus());
+    }
+
+    @Test
+    void run_Disabled_IsReadyWithoutInserting() {
+        // Arrange
+        var seeder = new DataSeeder(repository, objectMapper, restTemplate, events, false, REMOTE);
+
+        // Act
+        seeder.run(null);
+
+        // Assert
+        assertEquals(Status.UP, seeder.health().getStatus());
+        verifyNoInteractions(repository, restTemplate, events);
+    }
+
+    @Test
+    void seed_UsersAlreadyInDatabase_SkipsLoad() throws Exception {
+        // Arrange
+        when(repository.count()).thenReturn(300L);
+        var seeder = new DataSeeder(repository, objectMapper, restTemplate, events, true, REMOTE);
+
+        // Act
+        seeder.seed();
+
+        // Assert
+        assertEquals(0, seeder.done().get());
+        assertEquals(Status.UP, seeder.health().getStatus());
+        verify(repository, never()).insertInBatches(anyList());
+        verifyNoInteractions(restTemplate, events);
+    }
+
+    @Test
+    void seed_DatabaseFails_ReportsDown() {
+        // Arrange
+        when(repository.insertInBatches(anyList())).thenThrow(new IllegalStateException("banco fora do ar"));
+        var seeder = new DataSeeder(repository, objectMapper, restTemplate, events, true, null);
+
+        // Act
+        seeder.seed();
+
+        // Assert
+        assertTrue(seeder.done().isCompletedExceptionally());
+        assertEquals(Status.DOWN, seeder.health().getStatus());
+    }
+}
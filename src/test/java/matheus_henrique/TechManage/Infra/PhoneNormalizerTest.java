@@ -0,0 +1,24 @@
+package matheus_henrique.TechManage.Infra;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhoneNormalizerTest {
+
+    @Test
+    void normalize_RemovesFormatting() {
+        assertEquals("+5511999999999", PhoneNormalizer.normalize("+55 (11) 99999-9999"));
+        assertEquals("11912345678", PhoneNormalizer.normalize("11:91234-5678"));
+        assertEquals("+484731989995", PhoneNormalizer.normalize("+48 (473) 198-9995"));
+        assertEquals("", PhoneNormalizer.normalize(" - "));
+        assertNull(PhoneNormalizer.normalize(null));
+    }
+
+    @Test
+    void normalize_AlreadyNormalized_ReturnsSameInstance() {
+        String phone = "+5511999999999";
+
+        assertSame(phone, PhoneNormalizer.normalize(phone));
+    }
+}
@@ -0,0 +1,41 @@
+package matheus_henrique.TechManage.Infra;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestIdFilterTest {
+    private final RequestIdFilter filter = new RequestIdFilter();
+
+    @Test
+    void doFilter_ClientSendsId_UsesItInMdcAndResponse() throws Exception {
+        // Arrange
+        var request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader(RequestIdFilter.HEADER, "gateway-42");
+        var response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(request, response, (req, res) -> assertEquals("gateway-42", MDC.get(RequestIdFilter.MDC_KEY)));
+
+        // Assert
+        assertEquals("gateway-42", response.getHeader(RequestIdFilter.HEADER));
+        assertNull(MDC.get(RequestIdFilter.MDC_KEY));
+    }
+
+    @Test
+    void doFilter_InvalidId_GeneratesNewOne() throws Exception {
+        // Arrange: quebra de linha injetaria uma linha falsa no log
+        var request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader(RequestIdFilter.HEADER, "abc\nWARN forged");
+        var response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(request, response, (req, res) -> {});
+
+        // Assert
+        assertTrue(response.getHeader(RequestIdFilter.HEADER).matches("[0-9a-f]{16}"));
+    }
+}
@@ -0,0 +1,119 @@
+package matheus_henrique.TechManage.Infra;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import gen.model.ResponseModel;
+import matheus_henrique.TechManage.Models.SerializedResponse;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import matheus_henrique.TechManage.Models.UserFilter;
+import matheus_henrique.TechManage.Models.UserView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTest {
+    private ResponseCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ResponseCache(JsonMapper.builder().findAndAddModules().build(), true,
+                DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void user_SecondCall_ReturnsSameBytesWithoutLoading() {
+        // Act
+        SerializedResponse first = cache.user(1L, id -> loadUser("first", 0));
+        SerializedResponse second = cache.user(1L, id -> loadUser("second", 0));
+
+        // Assert
+        assertSame(first, second);
+        assertTrue(new String(second.getJson(), StandardCharsets.UTF_8).contains("\"fullName\":\"first\""));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void user_UpdatedEvent_ReloadsWithNewETag() {
+        // Arrange
+        SerializedResponse before = cache.user(1L, id -> loadUser("before", 0));
+
+        // Act
+        cache.onUserChanged(UserChangedEvent.updated(new UserView(1L, "before", null, null, null, null, 0L),
+                new UserView(1L, "after", null, null, null, null, 1L)));
+        SerializedResponse after = cache.user(1L, id -> loadUser("after", 1));
+
+        // Assert
+        assertEquals("\"0\"", before.getEtag());
+        assertEquals("\"1\"", after.getEtag());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void user_CreatedEventOfAnotherUser_KeepsEntry() {
+        // Arrange
+        cache.user(1L, id -> loadUser("first", 0));
+
+        // Act
+        cache.onUserChanged(UserChangedEvent.created(List.of(new UserView(2L, "other", null, null, null, null, 0L))));
+        cache.user(1L, id -> loadUser("second", 0));
+
+        // Assert
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void page_AnyEvent_ReloadsPages() {
+        // Arrange
+        cache.page(UserFilter.NONE, null, 100, () -> load("page"));
+        cache.page(UserFilter.NONE, null, 100, () -> load("page"));
+
+        // Act
+        cache.onUserChanged(UserChangedEvent.deleted(new UserView(5L, "deleted", null, null, null, null, 0L)));
+        cache.page(UserFilter.NONE, null, 100, () -> load("page"));
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void user_Missing_IsNotCached() {
+        // Act
+        assertNull(cache.user(1L, id -> { loads.incrementAndGet(); return null; }));
+        cache.user(1L, id -> loadUser("created", 0));
+
+        // Assert
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void matches_HandlesListsWeakTagsAndWildcard() {
+        // Arrange
+        SerializedResponse response = cache.page(UserFilter.NONE, null, 100, () -> load("page"));
+        String etag = response.getEtag();
+
+        // Assert
+        assertTrue(response.matches(etag));
+        assertTrue(response.matches("\"other\", W/" + etag));
+        assertTrue(response.matches("*"));
+        assertFalse(response.matches("\"other\""));
+        assertFalse(response.matches(null));
+    }
+
+    private UserView loadUser(String fullName, long version) {
+        loads.incrementAndGet();
+        return new UserView(1L, fullName, null, null, null, null, version);
+    }
+
+    private ResponseModel load(String value) {
+        loads.incrementAndGet();
+        return new ResponseModel().addDataItem(value);
+    }
+}
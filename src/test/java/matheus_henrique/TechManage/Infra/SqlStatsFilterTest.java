@@ -0,0 +1,73 @@
+package matheus_henrique.TechManage.Infra;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(OutputCaptureExtension.class)
+public class SqlStatsFilterTest {
+    private static final String SELECT = "select u.id from users u where u.id=?";
+
+    private final SqlStatsFilter filter = new SqlStatsFilter(20, 2, Duration.ofSeconds(10), true);
+
+    @Test
+    void doFilter_StatementsRun_AreSentInHeaders(CapturedOutput output) throws Exception {
+        // Arrange
+        var response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users/1"), response, (req, res) -> {
+            runStatement(SELECT);
+            runStatement("select count(*) from users");
+            res.getWriter().write("{}");
+        });
+
+        // Assert
+        assertEquals("2", response.getHeader(SqlStatsFilter.STATEMENTS_HEADER));
+        assertTrue(response.getHeader(SqlStatsFilter.TIME_HEADER).endsWith("ms"));
+        assertFalse(output.getOut().contains("Request acima dos limites de SQL"));
+        assertNull(SqlStats.current());
+    }
+
+    @Test
+    void doFilter_SameSqlRepeated_LogsPossibleNPlusOne(CapturedOutput output) throws Exception {
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/users"), new MockHttpServletResponse(), (req, res) -> {
+            for (int i = 0; i < 3; i++)
+                runStatement(SELECT);
+        });
+
+        // Assert
+        assertTrue(output.getOut().contains("Request acima dos limites de SQL"));
+        assertTrue(output.getOut().contains("statements=3"));
+        assertTrue(output.getOut().contains("repeatedCount=3"));
+    }
+
+    @Test
+    void doFilter_OutsideApi_IsNotCounted() throws Exception {
+        // Arrange
+        var response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), response, (req, res) ->
+                assertNull(SqlStats.current()));
+
+        // Assert
+        assertNull(response.getHeader(SqlStatsFilter.STATEMENTS_HEADER));
+    }
+
+    // O que o Hibernate faz para cada statement: inspeciona o SQL ao preparar e avisa antes e depois de executar
+    private static void runStatement(String sql) {
+        var listener = new SqlStatsListener();
+        listener.inspect(sql);
+        listener.jdbcExecuteStatementStart();
+        listener.jdbcExecuteStatementEnd();
+    }
+}
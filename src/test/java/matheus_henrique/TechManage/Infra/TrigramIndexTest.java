@@ -0,0 +1,124 @@
+package matheus_henrique.TechManage.Infra;
+
+import matheus_henrique.TechManage.Models.UserSearchPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrigramIndexTest {
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.put(1L, "Maria Silva", "maria.silva@example.com");
+        index.put(2L, "João Souza", "jsouza@example.com");
+        index.put(3L, "Ana Silveira", "ana@silveira.com");
+    }
+
+    @Test
+    void search_PartOfNameOrEmail_FindsUser() {
+        assertEquals(List.of(2L), index.search("souz", 0, 10).ids());
+        assertEquals(List.of(2L), index.search("jsouza@ex", 0, 10).ids());
+        assertEquals(List.of(), index.search("pereira", 0, 10).ids());
+    }
+
+    @Test
+    void search_CaseAndAccents_AreIgnored() {
+        assertEquals(List.of(2L), index.search("JOAO", 0, 10).ids());
+        index.put(4L, "Joao Pedro", "pedro@example.com");
+
+        assertEquals(List.of(2L, 4L), index.search("joão", 0, 10).ids());
+    }
+
+    @Test
+    void search_EveryWordMustMatch() {
+        assertEquals(List.of(1L), index.search("silva maria", 0, 10).ids());
+        assertEquals(List.of(), index.search("silva souza", 0, 10).ids());
+    }
+
+    @Test
+    void search_NameStartingWithWord_RanksFirst() {
+        index.put(4L, "Silvana Costa", "costa@example.com");
+
+        // nome começa com a palavra, depois palavra do nome, depois email
+        assertEquals(List.of(4L, 1L, 3L), index.search("silv", 0, 10).ids());
+    }
+
+    @Test
+    void search_MoreResultsThanLimit_ReturnsNextOffset() {
+        UserSearchPage first = index.search("example", 0, 1);
+        UserSearchPage second = index.search("example", 1, 1);
+
+        assertEquals(1, first.ids().size());
+        assertEquals(1L, first.nextOffset());
+        assertNull(second.nextOffset());
+        assertNotEquals(first.ids(), second.ids());
+    }
+
+    @Test
+    void put_SameId_ReplacesPreviousText_AndRemoveDropsIt() {
+        index.put(1L, "Maria Pereira", "maria.pereira@example.com");
+
+        assertEquals(List.of(3L), index.search("silv", 0, 10).ids());
+        assertEquals(List.of(1L), index.search("pereira", 0, 10).ids());
+        assertEquals(3, index.documents());
+
+        assertTrue(index.remove(1L));
+        assertFalse(index.remove(1L));
+        assertEquals(List.of(), index.search("pereira", 0, 10).ids());
+    }
+
+    @Test
+    void search_NoWordWithThreeLetters_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> index.search("an si", 0, 10));
+    }
+
+    @Test
+    void search_ManyUsers_MatchesBruteForce() {
+        // Arrange
+        String[] first = {"ana", "bruno", "carla", "daniel", "elisa", "fabio"};
+        String[] last = {"silva", "souza", "santos", "oliveira", "costa", "pereira"};
+        Random random = new Random(42);
+        index = new TrigramIndex();
+        Map<Long, String> texts = new HashMap<>();
+        for (long id = 1; id <= 3000; id++) {
+            String name = first[random.nextInt(first.length)] + " " + last[random.nextInt(last.length)];
+            String email = "user" + id + "@" + last[random.nextInt(last.length)] + ".com";
+            index.put(id, name, email);
+            texts.put(id, name + " " + email);
+        }
+        // atualizações e remoções fora de ordem de id
+        for (long id = 3000; id > 0; id -= 7) {
+            index.put(id, "Zed " + last[(int) (id % last.length)], "z" + id + "@example.com");
+            texts.put(id, "zed " + last[(int) (id % last.length)] + " z" + id + "@example.com");
+        }
+        for (long id = 5; id <= 3000; id += 11) {
+            index.remove(id);
+            texts.remove(id);
+        }
+
+        for (String query : List.of("silva", "ana sou", "user12", "zed cost", "oliveira elisa", "z29")) {
+            // Act
+            Set<Long> found = new HashSet<>();
+            UserSearchPage page;
+            int offset = 0;
+            do {
+                page = index.search(query, offset, 100);
+                found.addAll(page.ids());
+                offset += 100;
+            } while (page.nextOffset() != null);
+
+            // Assert
+            Set<Long> expected = new HashSet<>();
+            texts.forEach((id, text) -> {
+                if (Arrays.stream(query.split(" ")).allMatch(text::contains))
+                    expected.add(id);
+            });
+            assertEquals(expected, found, query);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package matheus_henrique.TechManage.Infra;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import matheus_henrique.TechManage.Models.UserView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class UniquenessFilterTest {
+    private UserRepository repository;
+    private UniquenessFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UserRepository.class);
+        filter = new UniquenessFilter(repository, true, 1000, 0.01);
+    }
+
+    @Test
+    void mightContain_BeforeRebuild_IsAlwaysPossible() {
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContainEmail("anyone@example.com"));
+        assertTrue(filter.mightContainPhone("+5511999999999"));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void rebuild_ScansTableInChunks_AndAnswersAbsentValues() {
+        // Arrange
+        filter = new UniquenessFilter(repository, true, 2 * (UniquenessFilter.SCAN_CHUNK + 1), 0.01);
+        List<Object[]> firstChunk = new ArrayList<>();
+        for (long id = 1; id <= UniquenessFilter.SCAN_CHUNK; id++)
+            firstChunk.add(new Object[]{id, "user" + id + "@example.com", "+55" + (11_000_000_000L + id)});
+        List<Object[]> lastChunk = List.<Object[]>of(new Object[]{20_000L, "last@example.com", "+5511999999999"});
+        when(repository.findUniqueKeysAfter(eq(Long.MIN_VALUE), any(Limit.class))).thenReturn(firstChunk);
+        when(repository.findUniqueKeysAfter(eq((long) UniquenessFilter.SCAN_CHUNK), any(Limit.class))).thenReturn(lastChunk);
+
+        // Act
+        filter.rebuild();
+
+        // Assert
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightContainEmail("user42@example.com"));
+        assertTrue(filter.mightContainEmail("last@example.com"));
+        // telefones são comparados já normalizados
+        assertTrue(filter.mightContainPhone("+55 11 99999-9999"));
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++)
+            if (filter.mightContainEmail("absent" + i + "@example.com"))
+                falsePositives++;
+        // dimensionado para 2x as linhas com 1% de falsos positivos
+        assertTrue(falsePositives < 300, "falsos positivos: " + falsePositives);
+        verify(repository, times(2)).findUniqueKeysAfter(anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void onUserChanged_DuringRebuild_ReachesTheNewFilter() {
+        // Arrange: um usuário criado enquanto a tabela é lida, depois do bloco que já foi lido
+        when(repository.findUniqueKeysAfter(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            filter.onUserChanged(UserChangedEvent.created(List.of(user(5L, "during@example.com", "+55 11 91111-1111"))));
+            return List.of();
+        });
+
+        // Act
+        filter.rebuild();
+
+        // Assert
+        assertTrue(filter.mightContainEmail("during@example.com"));
+        assertTrue(filter.mightContainPhone("+5511911111111"));
+        assertFalse(filter.mightContainEmail("late@example.com"));
+    }
+
+    @Test
+    void onUserChanged_BeforeFirstBuild_IsIgnored() {
+        // Arrange
+        filter.onUserChanged(UserChangedEvent.created(List.of(user(1L, "early@example.com", "+5511900000001"))));
+
+        // Act & Assert: ainda sem filtro, e a varredura é quem vai ler esse usuário
+        assertFalse(filter.isReady());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void bindTo_ExposesSizeFalsePositiveRateAndRebuildTime() {
+        // Arrange
+        when(repository.findUniqueKeysAfter(anyLong(), any(Limit.class))).thenReturn(List.of());
+        var registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+        filter.rebuild();
+        filter.onUserChanged(UserChangedEvent.created(List.of(user(1L, "one@example.com", "+5511900000001"))));
+
+        // Act
+        filter.mightContainEmail("missing@example.com");
+        filter.mightContainEmail("one@example.com");
+        filter.falsePositive(1);
+
+        // Assert
+        assertEquals(2, registry.get(UniquenessFilter.NAME + ".entries").gauge().value());
+        assertTrue(registry.get(UniquenessFilter.NAME + ".size").gauge().value() > 0);
+        assertEquals(0.5, registry.get(UniquenessFilter.NAME + ".false.positive.rate").gauge().value());
+        assertEquals(1, registry.get(UniquenessFilter.NAME + ".rebuilds").functionCounter().count());
+        assertNotNull(registry.get(UniquenessFilter.NAME + ".rebuild.duration").timeGauge());
+    }
+
+    private static UserView user(long id, String email, String phone) {
+        return new UserView(id, "User " + id, email, phone, null, null, 0L);
+    }
+}
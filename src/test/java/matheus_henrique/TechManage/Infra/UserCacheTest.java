@@ -0,0 +1,116 @@
+package matheus_henrique.TechManage.Infra;
+
+import matheus_henrique.TechManage.Enums.EUserType;
+import matheus_henrique.TechManage.Models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserCacheTest {
+    private UserCache cache;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserCache(100, Duration.ofMinutes(1));
+
+        testUser = User.builder()
+                .id(1L)
+                .fullName("Test User")
+                .email("test@example.com")
+                .phone("+5511999999999")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .userType(EUserType.ADMIN)
+                .build();
+    }
+
+    @Test
+    void get_SecondCall_IsServedFromCache() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        cache.get(1L, id -> { loads.incrementAndGet(); return testUser; });
+        User result = cache.get(1L, id -> { loads.incrementAndGet(); return testUser; });
+
+        // Assert
+        assertSame(testUser, result);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void get_MissingUser_IsNotCached() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        cache.get(99L, id -> { loads.incrementAndGet(); return null; });
+        User result = cache.get(99L, id -> { loads.incrementAndGet(); return testUser; });
+
+        // Assert
+        assertSame(testUser, result);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_LoaderFails_IsNotCached() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, id -> {
+            loads.incrementAndGet();
+            throw new IllegalStateException("banco fora do ar");
+        }));
+        User result = cache.get(1L, id -> { loads.incrementAndGet(); return testUser; });
+
+        // Assert
+        assertSame(testUser, result);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_WhileLoadIsInProgress_DoesNotLeaveStaleEntry() throws Exception {
+        // Arrange
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // leitor que leu a linha antes do delete e demora para terminar
+        Future<User> reader = executor.submit(() -> cache.get(1L, id -> {
+            loadStarted.countDown();
+            await(releaseLoad);
+            return testUser;
+        }));
+        assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+        // Act
+        Future<?> deleter = executor.submit(() -> cache.invalidate(1L));
+        Thread.sleep(50);
+        releaseLoad.countDown();
+        reader.get(5, TimeUnit.SECONDS);
+        deleter.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Assert
+        AtomicInteger loads = new AtomicInteger();
+        assertNull(cache.get(1L, id -> { loads.incrementAndGet(); return null; }));
+        assertEquals(1, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
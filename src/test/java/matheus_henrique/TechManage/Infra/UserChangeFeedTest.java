@@ -0,0 +1,72 @@
+package matheus_henrique.TechManage.Infra;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserChangeFeedTest {
+    private UserChangeFeed feed;
+
+    @AfterEach
+    void tearDown() {
+        feed.stop();
+    }
+
+    @Test
+    void subscribe_ConcurrentSubscribers_NeverGoOverTheCap() throws Exception {
+        // Arrange
+        feed = feed(10, Duration.ofMinutes(1));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SseEmitter>> results = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < 50; i++)
+            results.add(executor.submit(() -> {
+                start.await();
+                return feed.subscribe(null);
+            }));
+        start.countDown();
+        List<SseEmitter> emitters = new ArrayList<>();
+        for (Future<SseEmitter> result : results)
+            emitters.add(result.get());
+        executor.shutdown();
+
+        // Assert
+        assertEquals(10, emitters.stream().filter(Objects::nonNull).count());
+        assertEquals(10, feed.openStreams());
+    }
+
+    @Test
+    void subscribe_ResponseNeverInitialized_FreesTheSlot() throws InterruptedException {
+        // Arrange: sem passar pelo Spring MVC a resposta do emitter nunca fica pronta
+        feed = feed(1, Duration.ofMillis(100));
+        assertNotNull(feed.subscribe(null));
+        assertNull(feed.subscribe(null));
+
+        // Act
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (feed.openStreams() > 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(20);
+
+        // Assert
+        assertEquals(0, feed.openStreams());
+        assertNotNull(feed.subscribe(null));
+    }
+
+    private static UserChangeFeed feed(int maxSubscribers, Duration initializeTimeout) {
+        return new UserChangeFeed(new UserChangeLog(16), maxSubscribers, Duration.ofMinutes(30),
+                Duration.ofSeconds(15), initializeTimeout);
+    }
+}
@@ -0,0 +1,77 @@
+package matheus_henrique.TechManage.Infra;
+
+import matheus_henrique.TechManage.Enums.EUserChangeType;
+import matheus_henrique.TechManage.Models.UserChange;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import matheus_henrique.TechManage.Models.UserView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserChangeLogTest {
+    private UserChangeLog log;
+    private long start;
+
+    @BeforeEach
+    void setUp() {
+        log = new UserChangeLog(4);
+        start = log.lastSeq();
+    }
+
+    @Test
+    void read_AfterAppends_ReturnsOneChangePerIdInOrder() throws InterruptedException {
+        // Arrange
+        log.onUserChanged(UserChangedEvent.created(List.of(user(10L), user(11L))));
+        log.onUserChanged(UserChangedEvent.deleted(user(10L)));
+
+        // Act
+        List<UserChange> changes = log.read(start, 10, Duration.ZERO);
+
+        // Assert
+        assertEquals(List.of(start + 1, start + 2, start + 3), changes.stream().map(UserChange::seq).toList());
+        assertEquals(List.of(10L, 11L, 10L), changes.stream().map(UserChange::id).toList());
+        assertEquals(EUserChangeType.DELETED, changes.get(2).type());
+        assertEquals(start + 3, log.lastSeq());
+        // a partir de um cursor no meio, com limite
+        assertEquals(List.of(start + 2), log.read(start + 1, 1, Duration.ZERO).stream().map(UserChange::seq).toList());
+    }
+
+    @Test
+    void read_CursorOverwritten_StartsAtOldestKept() throws InterruptedException {
+        log.append(EUserChangeType.UPDATED, List.of(1L, 2L, 3L, 4L, 5L, 6L));
+
+        List<UserChange> changes = log.read(start, 10, Duration.ZERO);
+
+        // capacidade 4: as duas primeiras se perderam, quem lê vê o buraco pelo primeiro seq
+        assertEquals(start + 3, changes.get(0).seq());
+        assertEquals(4, changes.size());
+        assertEquals(4, log.size());
+    }
+
+    @Test
+    void read_NothingNew_WaitsForAppendOrTimeout() throws Exception {
+        assertEquals(List.of(), log.read(start, 10, Duration.ofMillis(20)));
+
+        CompletableFuture<List<UserChange>> reader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return log.read(start, 10, Duration.ofSeconds(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(50);
+        log.append(EUserChangeType.CREATED, List.of(7L));
+
+        assertEquals(7L, reader.get(5, TimeUnit.SECONDS).get(0).id());
+    }
+
+    private static UserView user(long id) {
+        return new UserView(id, "User " + id, "user" + id + "@example.com", null, null, null, 0L);
+    }
+}
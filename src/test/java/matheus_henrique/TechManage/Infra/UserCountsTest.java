@@ -0,0 +1,136 @@
+package matheus_henrique.TechManage.Infra;
+
+import gen.model.UserStatsModel;
+import matheus_henrique.TechManage.Enums.EUserType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UserCountsTest {
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    private UserCounts counts;
+
+    @BeforeEach
+    void setUp() {
+        counts = new UserCounts();
+        counts.add(EUserType.ADMIN, LocalDate.of(1990, 1, 1), 1);
+        counts.add(EUserType.VIEWER, LocalDate.of(2010, 3, 3), 1);
+        counts.add(EUserType.VIEWER, LocalDate.of(1950, 12, 31), 1);
+    }
+
+    @Test
+    void snapshot_CountsPerTypeAgeAndBirthYear() {
+        // Act
+        UserStatsModel stats = counts.snapshot(TODAY);
+
+        // Assert
+        assertEquals(3L, stats.getTotal());
+        assertEquals(Map.of("ADMIN", 1L, "EDITOR", 0L, "VIEWER", 2L), stats.getByUserType());
+        assertEquals(List.of("0-17", "18-24", "25-34", "35-44", "45-54", "55-64", "65+"),
+                List.copyOf(stats.getAgeBuckets().keySet()));
+        assertEquals(1L, stats.getAgeBuckets().get("0-17"));
+        assertEquals(1L, stats.getAgeBuckets().get("25-34"));
+        assertEquals(1L, stats.getAgeBuckets().get("65+"));
+        assertEquals(Map.of("1950", 1L, "1990", 1L, "2010", 1L), stats.getBirthYears());
+    }
+
+    @Test
+    void snapshot_BirthdayIsTheFirstDayOfTheNewAge() {
+        counts.add(EUserType.EDITOR, LocalDate.of(2006, 6, 15), 1);
+        counts.add(EUserType.EDITOR, LocalDate.of(2006, 6, 16), 1);
+
+        UserStatsModel stats = counts.snapshot(TODAY);
+
+        // 4 faz 18 hoje, 5 só amanhã
+        assertEquals(1L, stats.getAgeBuckets().get("18-24"));
+        assertEquals(2L, stats.getAgeBuckets().get("0-17"));
+    }
+
+    @Test
+    void add_UpdateAsTwoDeltas_MovesTheUserBetweenCounts() {
+        // o usuário como estava sai, como ficou entra
+        counts.add(EUserType.ADMIN, LocalDate.of(1990, 1, 1), -1);
+        counts.add(EUserType.EDITOR, LocalDate.of(2000, 1, 1), 1);
+
+        UserStatsModel stats = counts.snapshot(TODAY);
+
+        assertEquals(3L, stats.getTotal());
+        assertEquals(0L, stats.getByUserType().get("ADMIN"));
+        assertEquals(1L, stats.getByUserType().get("EDITOR"));
+        assertFalse(stats.getBirthYears().containsKey("1990"));
+        assertEquals(1L, stats.getBirthYears().get("2000"));
+    }
+
+    @Test
+    void add_Removal_DiscountsTheUser() {
+        counts.add(EUserType.VIEWER, LocalDate.of(2010, 3, 3), -1);
+
+        UserStatsModel stats = counts.snapshot(TODAY);
+
+        assertEquals(2L, stats.getTotal());
+        assertEquals(1L, stats.getByUserType().get("VIEWER"));
+        assertEquals(0L, stats.getAgeBuckets().get("0-17"));
+        assertFalse(stats.getBirthYears().containsKey("2010"));
+    }
+
+    @Test
+    void add_ConcurrentWrites_MatchesRecount() throws InterruptedException {
+        // Arrange
+        counts = new UserCounts();
+        int threads = 4;
+        int usersPerThread = 20_000;
+        List<List<EUserType>> finalTypes = new ArrayList<>();
+        List<List<LocalDate>> finalBirthDates = new ArrayList<>();
+        List<Thread> writers = new ArrayList<>();
+
+        // Act: cada thread cria seus usuários, atualiza parte deles e remove outra parte, sem trava nenhuma
+        for (int t = 0; t < threads; t++) {
+            Random random = new Random(42 + t);
+            List<EUserType> types = new ArrayList<>();
+            List<LocalDate> birthDates = new ArrayList<>();
+            finalTypes.add(types);
+            finalBirthDates.add(birthDates);
+            writers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < usersPerThread; i++) {
+                    EUserType type = EUserType.values()[random.nextInt(3)];
+                    LocalDate birthDate = LocalDate.of(1940 + random.nextInt(80), 1 + random.nextInt(12), 1 + random.nextInt(28));
+                    counts.add(type, birthDate, 1);
+                    switch (random.nextInt(4)) {
+                        case 0 -> counts.add(type, birthDate, -1);
+                        case 1 -> {
+                            counts.add(type, birthDate, -1);
+                            type = EUserType.values()[random.nextInt(3)];
+                            birthDate = birthDate.plusYears(random.nextInt(10));
+                            counts.add(type, birthDate, 1);
+                            types.add(type);
+                            birthDates.add(birthDate);
+                        }
+                        default -> {
+                            types.add(type);
+                            birthDates.add(birthDate);
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread writer : writers)
+            writer.join();
+
+        // Assert
+        List<EUserType> types = finalTypes.stream().flatMap(List::stream).toList();
+        UserStatsModel stats = counts.snapshot(TODAY);
+        assertEquals(types.size(), stats.getTotal());
+        for (EUserType type : EUserType.values())
+            assertEquals(types.stream().filter(type::equals).count(), stats.getByUserType().get(type.name()));
+        Map<String, Long> years = new HashMap<>();
+        finalBirthDates.stream().flatMap(List::stream)
+                .forEach(date -> years.merge(Integer.toString(date.getYear()), 1L, Long::sum));
+        assertEquals(years, stats.getBirthYears());
+        assertEquals(types.size(), stats.getAgeBuckets().values().stream().mapToLong(Long::longValue).sum());
+    }
+}
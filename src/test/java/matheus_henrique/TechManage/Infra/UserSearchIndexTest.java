@@ -0,0 +1,80 @@
+package matheus_henrique.TechManage.Infra;
+
+import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import matheus_henrique.TechManage.Models.UserView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserSearchIndexTest {
+    private UserRepository repository;
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UserRepository.class);
+        index = new UserSearchIndex(repository, true);
+    }
+
+    @Test
+    void search_BeforeFirstBuild_ReturnsNull() {
+        assertFalse(index.isReady());
+        assertNull(index.search("ana", 0, 20));
+    }
+
+    @Test
+    void onUserChanged_DuringRebuild_AppliesOnlyUsersAlreadyRead() {
+        // Arrange: enquanto o segundo bloco é lido, o usuário 1 (já lido) muda de nome e o 20030 (ainda não) é criado
+        List<Object[]> firstChunk = new ArrayList<>();
+        firstChunk.add(new Object[]{1L, "Ana Souza", "ana@example.com"});
+        for (long id = 2; id <= UserSearchIndex.SCAN_CHUNK; id++)
+            firstChunk.add(new Object[]{id, "User " + id, "user" + id + "@example.com"});
+        when(repository.findSearchKeysAfter(eq(Long.MIN_VALUE), any(Limit.class))).thenReturn(firstChunk);
+        when(repository.findSearchKeysAfter(eq((long) UserSearchIndex.SCAN_CHUNK), any(Limit.class))).thenAnswer(invocation -> {
+            index.onUserChanged(UserChangedEvent.updated(user(1L, "Ana Souza", "ana@example.com"),
+                    user(1L, "Bruna Souza", "bruna@example.com")));
+            index.onUserChanged(UserChangedEvent.created(List.of(user(20_030L, "Carla Lima", "carla@example.com"))));
+            return List.<Object[]>of(new Object[]{20_000L, "Daniel Costa", "daniel@example.com"},
+                    new Object[]{20_030L, "Carla Lima", "carla@example.com"});
+        });
+
+        // Act
+        index.rebuild();
+
+        // Assert
+        assertEquals(List.of(1L), index.search("bruna", 0, 20).ids());
+        assertTrue(index.search("ana souza", 0, 20).ids().isEmpty());
+        assertEquals(List.of(20_000L), index.search("daniel", 0, 20).ids());
+        // o 20030 ainda não tinha sido lido: entra uma vez só, pela varredura
+        assertEquals(List.of(20_030L), index.search("carla", 0, 20).ids());
+        assertEquals(UserSearchIndex.SCAN_CHUNK + 2, index.current().documents());
+    }
+
+    @Test
+    void onUserChanged_Deleted_RemovesTheUser() {
+        // Arrange
+        when(repository.findSearchKeysAfter(eq(Long.MIN_VALUE), any(Limit.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{1L, "Ana Souza", "ana@example.com"}));
+        index.rebuild();
+
+        // Act
+        index.onUserChanged(UserChangedEvent.deleted(user(1L, "Ana Souza", "ana@example.com")));
+
+        // Assert
+        assertTrue(index.search("ana", 0, 20).ids().isEmpty());
+    }
+
+    private static UserView user(long id, String fullName, String email) {
+        return new UserView(id, fullName, email, null, null, null, 0L);
+    }
+}
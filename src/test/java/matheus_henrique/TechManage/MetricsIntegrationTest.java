@@ -0,0 +1,76 @@
+package matheus_henrique.TechManage;
+
+import matheus_henrique.TechManage.Enums.EUserType;
+import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Models.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Com o registry do Prometheus, que os testes desligam por padrão
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:metricstest")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void prometheus_AfterRequests_ExposesApiRepositoryHibernateAndPoolMetrics() throws Exception {
+        User user = userRepository.save(User.builder()
+                .fullName("Metrics User")
+                .email("metrics@example.com")
+                .phone("+5511977777777")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .userType(EUserType.VIEWER)
+                .build());
+
+        mockMvc.perform(get("/api/users/{id}", user.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/{id}", user.getId() + 1000)).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/users").param("userType", "UNKNOWN")).andExpect(status().isBadRequest());
+        // a validação da UserService lança ConstraintViolationException: ainda é um erro do cliente
+        mockMvc.perform(put("/api/users/{id}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"fullName": "Metrics User", "email": "not-an-email", "phone": "+5511977777777",
+                                 "birthDate": "1990-01-01", "userType": "VIEWER"}"""))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("users_api_requests_seconds_count{operation=\"getUser\",outcome=\"ok\",} 1.0")))
+                .andExpect(content().string(containsString("users_api_requests_seconds_count{operation=\"getUser\",outcome=\"not_found\",} 1.0")))
+                .andExpect(content().string(containsString("users_api_requests_seconds_count{operation=\"getUsers\",outcome=\"validation_error\",} 1.0")))
+                .andExpect(content().string(containsString("users_api_requests_seconds_count{operation=\"updateUser\",outcome=\"validation_error\",} 1.0")))
+                .andExpect(content().string(not(containsString("outcome=\"exception\""))))
+                .andExpect(content().string(containsString("users_api_requests_seconds_bucket{operation=\"getUser\",outcome=\"ok\",le=")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket{")))
+                .andExpect(content().string(containsString("method=\"findViewById\"")))
+                .andExpect(content().string(containsString("hibernate_statements_total")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")));
+    }
+}
@@ -0,0 +1,49 @@
+package matheus_henrique.TechManage;
+
+import matheus_henrique.TechManage.Infra.DataSeeder;
+import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Banco próprio, para a carga não se misturar com os dados dos outros testes
+@SpringBootTest(properties = {
+        "techmanage.seed.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:seedtest"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class SeedIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSeeder dataSeeder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void startup_LoadsFallbackUsersAndBecomesReady() throws Exception {
+        assertEquals(300, dataSeeder.done().get(30, TimeUnit.SECONDS));
+        assertEquals(300, userRepository.count());
+
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("UP")));
+        mockMvc.perform(get("/api/users").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].length()", is(300)));
+    }
+}
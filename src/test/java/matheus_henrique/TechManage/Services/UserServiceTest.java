@@ -1,24 +1,51 @@
 package matheus_henrique.TechManage.Services;
 
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import matheus_henrique.TechManage.Enums.EUserSortField;
 import matheus_henrique.TechManage.Enums.EUserType;
+import matheus_henrique.TechManage.Exceptions.UserAlreadyExistsException;
+import matheus_henrique.TechManage.Exceptions.UserVersionMismatchException;
+import matheus_henrique.TechManage.Infra.UniquenessFilter;
+import matheus_henrique.TechManage.Infra.UserCache;
 import matheus_henrique.TechManage.Infra.Repository.UserRepository;
 import matheus_henrique.TechManage.Models.User;
+import matheus_henrique.TechManage.Models.UserChangedEvent;
+import matheus_henrique.TechManage.Models.UserCursor;
+import matheus_henrique.TechManage.Models.UserFilter;
+import matheus_henrique.TechManage.Models.UserPage;
+import matheus_henrique.TechManage.Models.UserPatch;
+import matheus_henrique.TechManage.Models.UserView;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +54,19 @@ public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Spy
+    private UserCache userCache = new UserCache(100, Duration.ofMinutes(1));
+
+    // desligado: todo valor é um possível acerto, como se o filtro não existisse
+    @Spy
+    private UniquenessFilter uniqueness = new UniquenessFilter(null, false, 1000, 0.01);
+
     @InjectMocks
     private UserService userService;
 
@@ -60,6 +100,72 @@ public class UserServiceTest {
         verify(userRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void getUserById_CalledTwice_HitsRepositoryOnce() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // Act
+        userService.getUserById(1L);
+        User result = userService.getUserById(1L);
+
+        // Assert
+        assertEquals(testUser, result);
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void getUserView_CalledTwice_ReadsProjectionEachTime() {
+        // Arrange
+        when(userRepository.findViewById(1L)).thenReturn(Optional.of(UserView.of(testUser)));
+
+        // Act
+        userService.getUserView(1L);
+        UserView result = userService.getUserView(1L);
+
+        // Assert
+        assertEquals(testUser.getEmail(), result.email());
+        verify(userRepository, times(2)).findViewById(1L);
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void getUserViews_ManyIds_QueriesInChunks() {
+        // Arrange
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 1500; id++)
+            ids.add(id);
+        ids.add(1L);
+        when(userRepository.findViewsByIdIn(anyCollection()))
+                .thenReturn(List.of(UserView.of(testUser)))
+                .thenReturn(List.of());
+
+        // Act
+        Map<Long, UserView> result = userService.getUserViews(ids);
+
+        // Assert
+        assertEquals(Map.of(1L, UserView.of(testUser)), result);
+        verify(userRepository, times(1)).findViewsByIdIn(ids.subList(0, 1000));
+        verify(userRepository, times(1)).findViewsByIdIn(ids.subList(1000, 1500));
+    }
+
+    @Test
+    void deleteUser_CachedUser_IsInvalidated() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser), Optional.empty());
+        when(userRepository.deleteRowById(1L, null)).thenReturn(Optional.of(stored()));
+        userService.getUserById(1L);
+
+        // Act
+        userService.deleteUser(1L);
+        User result = userService.getUserById(1L);
+
+        // Assert
+        assertNull(result);
+        verify(userCache, times(1)).invalidate(1L);
+        verify(userRepository, times(2)).findById(1L);
+    }
+
     @Test
     void getUserById_NonExistingId_ReturnsNull() {
         // Arrange
@@ -99,6 +205,59 @@ public class UserServiceTest {
         verify(userRepository, times(1)).findAll();
     }
 
+    @Test
+    void getUsersPage_MoreUsersThanLimit_ReturnsCursorOfLastUser() {
+        // Arrange
+        User secondUser = User.builder()
+                .id(2L)
+                .fullName("Second User")
+                .email("second@example.com")
+                .phone("+55 11 88888-8888")
+                .birthDate(LocalDate.of(1995, 5, 5))
+                .userType(EUserType.EDITOR)
+                .build();
+
+        when(userRepository.findPage(UserFilter.NONE, null, 2))
+                .thenReturn(Arrays.asList(UserView.of(testUser), UserView.of(secondUser)));
+
+        // Act
+        UserPage result = userService.getUsersPage(UserFilter.NONE, null, 1);
+
+        // Assert
+        assertEquals(1, result.users().size());
+        assertEquals(testUser.getId(), result.users().get(0).getId());
+        assertEquals(new UserCursor(EUserSortField.ID, null, testUser.getId()), result.nextCursor());
+    }
+
+    @Test
+    void getUsersPage_LastPage_ReturnsNullCursor() {
+        // Arrange
+        var after = new UserCursor(EUserSortField.ID, null, 1L);
+        when(userRepository.findPage(UserFilter.NONE, after, 101))
+                .thenReturn(List.of(UserView.of(testUser)));
+
+        // Act
+        UserPage result = userService.getUsersPage(UserFilter.NONE, after, null);
+
+        // Assert
+        assertEquals(1, result.users().size());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void getUsersPage_LimitAboveMaximum_IsCapped() {
+        // Arrange
+        when(userRepository.findPage(UserFilter.NONE, null, UserService.MAX_PAGE_SIZE + 1))
+                .thenReturn(List.of());
+
+        // Act
+        UserPage result = userService.getUsersPage(UserFilter.NONE, null, 1_000_000);
+
+        // Assert
+        assertTrue(result.users().isEmpty());
+        verify(userRepository, times(1)).findPage(UserFilter.NONE, null, UserService.MAX_PAGE_SIZE + 1);
+    }
+
     @Test
     void updateUser_ExistingUser_UpdatesAndReturnsUser() {
         // Arrange
@@ -111,8 +270,8 @@ public class UserServiceTest {
                 .userType(EUserType.EDITOR)
                 .build();
 
-        when(userRepository.existsById(1L)).thenReturn(true);
-        when(userRepository.save(any(User.class))).thenReturn(updatedUser);
+        when(userRepository.updateById(1L, "Updated Name", "updated@example.com", "+55 11 77777-7777",
+                LocalDate.of(1990, 1, 1), EUserType.EDITOR, null)).thenReturn(Optional.of(stored()));
 
         // Act
         User result = userService.updateUser(updatedUser);
@@ -122,8 +281,13 @@ public class UserServiceTest {
         assertEquals("Updated Name", result.getFullName());
         assertEquals("updated@example.com", result.getEmail());
         assertEquals(EUserType.EDITOR, result.getUserType());
-        verify(userRepository, times(1)).existsById(1L);
-        verify(userRepository, times(1)).save(updatedUser);
+        verify(userRepository, never()).existsById(anyLong());
+        verify(userRepository, never()).saveAndFlush(any(User.class));
+        verify(userCache, times(1)).invalidate(1L);
+        // o UPDATE devolve a linha como estava: o evento leva as duas versões do usuário, sem reler nada
+        verify(events, times(1)).publishEvent(UserChangedEvent.updated(stored(), new UserView(1L, "Updated Name",
+                "updated@example.com", "+55 11 77777-7777", LocalDate.of(1990, 1, 1), EUserType.EDITOR, 3L)));
+        verify(userRepository, never()).findById(anyLong());
     }
 
     @Test
@@ -138,15 +302,147 @@ public class UserServiceTest {
                 .userType(EUserType.VIEWER)
                 .build();
 
-        when(userRepository.existsById(99L)).thenReturn(false);
+        when(userRepository.updateById(eq(99L), any(), any(), any(), any(), any(), isNull())).thenReturn(Optional.empty());
 
         // Act
         User result = userService.updateUser(nonExistingUser);
 
         // Assert
         assertNull(result);
-        verify(userRepository, times(1)).existsById(99L);
-        verify(userRepository, never()).save(any(User.class));
+        verify(userCache, never()).invalidate(anyLong());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void updateUser_EmailConstraintViolated_ThrowsUserAlreadyExists() {
+        // Arrange
+        var violation = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Unique index or primary key violation",
+                        new SQLException(), "PUBLIC.UK_USERS_EMAIL_INDEX_4"));
+        when(userRepository.updateById(eq(1L), any(), any(), any(), any(), any(), any())).thenThrow(violation);
+
+        // Act
+        var exception = assertThrows(UserAlreadyExistsException.class, () -> userService.updateUser(testUser));
+
+        // Assert
+        assertEquals(UserAlreadyExistsException.EMAIL_MESSAGE, exception.getMessage());
+        verify(userCache, never()).invalidate(anyLong());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void updateUser_StatementFails_NeitherInvalidatesNorPublishes() {
+        // Arrange
+        var timeout = new QueryTimeoutException("Statement was canceled or the session timed out");
+        when(userRepository.updateById(eq(1L), any(), any(), any(), any(), any(), any())).thenThrow(timeout);
+
+        // Act
+        assertSame(timeout, assertThrows(QueryTimeoutException.class, () -> userService.updateUser(testUser)));
+
+        // Assert
+        verify(userCache, never()).invalidate(anyLong());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void updateUser_InvalidUser_ThrowsWithoutQuerying() {
+        // Arrange
+        testUser.setEmail("not-an-email");
+        var realValidator = Validation.buildDefaultValidatorFactory().getValidator();
+        when(validator.validate(testUser)).thenReturn(realValidator.validate(testUser));
+
+        // Act & Assert
+        assertThrows(jakarta.validation.ConstraintViolationException.class, () -> userService.updateUser(testUser));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void updateUser_ExpectedVersion_ReturnsUserWithNextVersion() {
+        // Arrange
+        testUser.setVersion(2L);
+        when(userRepository.updateById(eq(1L), any(), any(), any(), any(), any(), eq(2L))).thenReturn(Optional.of(stored()));
+
+        // Act
+        User result = userService.updateUser(testUser);
+
+        // Assert
+        assertEquals(3L, result.getVersion());
+        verify(userRepository, never()).existsById(anyLong());
+    }
+
+    @Test
+    void updateUser_VersionChanged_ThrowsVersionMismatch() {
+        // Arrange
+        testUser.setVersion(3L);
+        when(userRepository.updateById(eq(1L), any(), any(), any(), any(), any(), eq(3L))).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(UserVersionMismatchException.class, () -> userService.updateUser(testUser));
+        verify(userCache, never()).invalidate(anyLong());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void patchUser_OnlyChangedFields_UpdatesAndReturnsUser() {
+        // Arrange
+        var patch = new UserPatch(Map.of(UserPatch.FULL_NAME, "Patched Name"));
+        when(userRepository.updateFields(1L, patch, null)).thenReturn(Optional.of(stored()));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // Act
+        User result = userService.patchUser(1L, patch);
+
+        // Assert
+        assertSame(testUser, result);
+        verify(validator, times(1)).validateValue(User.class, UserPatch.FULL_NAME, "Patched Name");
+        verify(userCache, times(1)).invalidate(1L);
+        verify(events, times(1)).publishEvent(UserChangedEvent.updated(stored(), new UserView(1L, "Patched Name",
+                "test@example.com", "+5511999999999", LocalDate.of(1990, 1, 1), EUserType.ADMIN, 3L)));
+    }
+
+    @Test
+    void patchUser_EmptyPatch_ReturnsUserWithoutUpdating() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // Act
+        User result = userService.patchUser(1L, new UserPatch(Map.of()));
+
+        // Assert
+        assertSame(testUser, result);
+        verify(userRepository, never()).updateFields(anyLong(), any(), any());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void patchUser_NonExistingUser_ReturnsNull() {
+        // Arrange
+        var patch = new UserPatch(Map.of(UserPatch.USER_TYPE, EUserType.VIEWER));
+        when(userRepository.updateFields(99L, patch, null)).thenReturn(Optional.empty());
+
+        // Act
+        User result = userService.patchUser(99L, patch);
+
+        // Assert
+        assertNull(result);
+        verify(userRepository, never()).findById(anyLong());
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void patchUser_NullValue_ThrowsWithoutQuerying() {
+        // Arrange
+        var changes = new HashMap<String, Object>();
+        changes.put(UserPatch.EMAIL, null);
+        var realValidator = Validation.buildDefaultValidatorFactory().getValidator();
+        when(validator.validateValue(User.class, UserPatch.EMAIL, null))
+                .thenReturn(realValidator.validateValue(User.class, UserPatch.EMAIL, null));
+
+        // Act & Assert
+        assertThrows(jakarta.validation.ConstraintViolationException.class,
+                () -> userService.patchUser(1L, new UserPatch(changes)));
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -169,7 +465,7 @@ public class UserServiceTest {
                 .userType(EUserType.VIEWER)
                 .build();
 
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(savedUser);
 
         // Act
         User result = userService.createUser(newUser);
@@ -179,61 +475,194 @@ public class UserServiceTest {
         assertEquals(3L, result.getId());
         assertEquals("New User", result.getFullName());
         assertEquals("new@example.com", result.getEmail());
-        verify(userRepository, times(1)).save(newUser);
+        verify(userRepository, times(1)).saveAndFlush(newUser);
+        verify(events, times(1)).publishEvent(UserChangedEvent.created(List.of(UserView.of(savedUser))));
+    }
+
+    @Test
+    void createUser_PhoneConstraintViolated_ThrowsUserAlreadyExists() {
+        // Arrange
+        var violation = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("Unique index or primary key violation",
+                        new SQLException(), "PUBLIC.UK_USERS_PHONE_INDEX_4"));
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(violation);
+
+        // Act
+        var exception = assertThrows(UserAlreadyExistsException.class, () -> userService.createUser(testUser));
+
+        // Assert
+        assertEquals("Telefone já existe no banco de dados!", exception.getMessage());
+    }
+
+    @Test
+    void createUser_OtherConstraintViolated_RethrowsOriginalException() {
+        // Arrange
+        var violation = new DataIntegrityViolationException("NULL not allowed for column \"FULL_NAME\"");
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(violation);
+
+        // Act & Assert
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(testUser)));
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    void createUsers_InsertsInBatchesAndReturnsIdsInOrder() {
+        // Arrange
+        User first = User.builder().fullName("First").build();
+        User second = User.builder().fullName("Second").build();
+        List<User> newUsers = List.of(first, second);
+
+        when(userRepository.insertInBatches(newUsers)).thenAnswer(invocation -> {
+            first.setId(10L);
+            second.setId(11L);
+            return 2;
+        });
+
+        // Act
+        List<Long> result = userService.createUsers(newUsers);
+
+        // Assert
+        assertEquals(List.of(10L, 11L), result);
+        verify(userRepository, times(1)).insertInBatches(newUsers);
+        verify(events, times(1)).publishEvent(UserChangedEvent.created(List.of(UserView.of(first), UserView.of(second))));
+    }
+
+    @Test
+    void validateNewUsers_ValidBatch_ReturnsNoErrors() {
+        // Arrange
+        User second = User.builder()
+                .fullName("Second User")
+                .email("second@example.com")
+                .phone("+5511888888888")
+                .birthDate(LocalDate.of(1995, 5, 5))
+                .userType(EUserType.EDITOR)
+                .build();
+
+        // Act
+        List<String> errors = userService.validateNewUsers(List.of(testUser, second));
+
+        // Assert
+        assertTrue(errors.isEmpty());
+        verify(userRepository, times(1)).findExistingEmails(any());
+        verify(userRepository, times(1)).findExistingPhones(any());
+    }
+
+    @Test
+    void validateNewUsers_DuplicatesInBatchAndDatabase_ReturnsEveryError() {
+        // Arrange
+        User sameEmail = User.builder()
+                .fullName("Same Email")
+                .email("test@example.com")
+                .phone("+5511777777777")
+                .birthDate(LocalDate.of(1995, 5, 5))
+                .userType(EUserType.EDITOR)
+                .build();
+        User existingPhone = User.builder()
+                .fullName("Existing Phone")
+                .email("phone@example.com")
+                .phone("+5511666666666")
+                .birthDate(LocalDate.of(1995, 5, 5))
+                .userType(EUserType.VIEWER)
+                .build();
+
+        when(userRepository.findExistingPhones(any())).thenReturn(List.of("+5511666666666"));
+
+        // Act
+        List<String> errors = userService.validateNewUsers(List.of(testUser, sameEmail, existingPhone));
+
+        // Assert
+        assertEquals(2, errors.size());
+        assertTrue(errors.contains("Usuário 1: Email repetido no lote (usuário 0)!"));
+        assertTrue(errors.contains("Usuário 2: Telefone já existe no banco de dados!"));
+    }
+
+    @Test
+    void validateNewUsers_TooManyUsers_ReturnsErrorWithoutQuerying() {
+        // Arrange
+        List<User> tooMany = Collections.nCopies(UserService.MAX_BULK_SIZE + 1, testUser);
+
+        // Act
+        List<String> errors = userService.validateNewUsers(tooMany);
+
+        // Assert
+        assertEquals(1, errors.size());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void deleteUser_ExistingId_DeletesUserAndReturnsTrue() {
         // Arrange
-        when(userRepository.existsById(1L)).thenReturn(true, false);
-        doNothing().when(userRepository).deleteById(1L);
+        when(userRepository.deleteRowById(1L, null)).thenReturn(Optional.of(stored()));
 
         // Act
         boolean result = userService.deleteUser(1L);
 
         // Assert
         assertTrue(result);
-        verify(userRepository, times(1)).deleteById(1L);
-        verify(userRepository, times(2)).existsById(1L);
+        verify(userRepository, times(1)).deleteRowById(1L, null);
+        verify(userRepository, never()).existsById(anyLong());
+        verify(userRepository, never()).deleteById(anyLong());
+        verify(events, times(1)).publishEvent(UserChangedEvent.deleted(stored()));
     }
 
     @Test
     void deleteUser_NonExistingId_ReturnsFalse() {
         // Arrange
-        when(userRepository.existsById(99L)).thenReturn(false);
+        when(userRepository.deleteRowById(99L, null)).thenReturn(Optional.empty());
 
         // Act
         boolean result = userService.deleteUser(99L);
 
         // Assert
         assertFalse(result);
-        verify(userRepository, times(1)).existsById(99L);
-        verify(userRepository, never()).deleteById(anyLong());
+        verify(userRepository, times(1)).deleteRowById(99L, null);
+        verify(userCache, never()).invalidate(anyLong());
+        verifyNoInteractions(events);
     }
 
     @Test
-    void emailAlreadyExists_ExistingEmail_ReturnsTrue() {
+    void deleteUser_VersionChanged_ThrowsVersionMismatch() {
         // Arrange
-        when(userRepository.findByEmail("test@example.com")).thenReturn(testUser);
+        when(userRepository.deleteRowById(1L, 3L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
 
-        // Act
-        boolean result = userService.emailAlreadyExists("test@example.com");
+        // Act & Assert
+        assertThrows(UserVersionMismatchException.class, () -> userService.deleteUser(1L, 3L));
+        verifyNoInteractions(events);
+    }
 
-        // Assert
-        assertTrue(result);
-        verify(userRepository, times(1)).findByEmail("test@example.com");
+    @Test
+    void deleteUser_ExpectedVersionOfMissingUser_ReturnsFalse() {
+        // Arrange
+        when(userRepository.deleteRowById(99L, 3L)).thenReturn(Optional.empty());
+        when(userRepository.existsById(99L)).thenReturn(false);
+
+        // Act & Assert
+        assertFalse(userService.deleteUser(99L, 3L));
     }
 
     @Test
-    void emailAlreadyExists_NonExistingEmail_ReturnsFalse() {
+    void validateNewUsers_FilterSaysAbsent_QueriesOnlyPossibleHits() {
         // Arrange
-        when(userRepository.findByEmail("nonexisting@example.com")).thenReturn(null);
+        User other = User.builder().fullName("Other").email("other@example.com").phone("+5511888888888")
+                .birthDate(LocalDate.of(1990, 1, 1)).userType(EUserType.VIEWER).build();
+        doReturn(true).when(uniqueness).mightContainEmail("test@example.com");
+        doReturn(false).when(uniqueness).mightContainEmail("other@example.com");
+        doReturn(false).when(uniqueness).mightContainPhone(anyString());
+        when(userRepository.findExistingEmails(List.of("test@example.com"))).thenReturn(List.of());
 
         // Act
-        boolean result = userService.emailAlreadyExists("nonexisting@example.com");
+        List<String> errors = userService.validateNewUsers(List.of(testUser, other));
 
         // Assert
-        assertFalse(result);
-        verify(userRepository, times(1)).findByEmail("nonexisting@example.com");
+        assertTrue(errors.isEmpty());
+        verify(userRepository, never()).findExistingPhones(any());
+        verify(uniqueness, times(1)).falsePositive(1);
+    }
+
+    // testUser como está no banco, na versão 2 e com o telefone normalizado
+    private static UserView stored() {
+        return new UserView(1L, "Test User", "test@example.com", "+5511999999999", LocalDate.of(1990, 1, 1),
+                EUserType.ADMIN, 2L);
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,23 @@
 package matheus_henrique.TechManage;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import gen.model.UserModel;
 import matheus_henrique.TechManage.Enums.EUserType;
 import matheus_henrique.TechManage.Infra.Repository.UserRepository;
+import matheus_henrique.TechManage.Infra.ResponseCache;
+import matheus_henrique.TechManage.Infra.SqlStatsFilter;
+import matheus_henrique.TechManage.Infra.UniquenessFilter;
+import matheus_henrique.TechManage.Infra.UserChangeFeed;
+import matheus_henrique.TechManage.Infra.UserChangeLog;
+import matheus_henrique.TechManage.Infra.UserSearchIndex;
+import matheus_henrique.TechManage.Infra.UserStats;
+import matheus_henrique.TechManage.Infra.UserTableMirror;
 import matheus_henrique.TechManage.Models.User;
+import matheus_henrique.TechManage.Services.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,10 +30,15 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -38,6 +56,24 @@ public class UserIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UniquenessFilter uniquenessFilter;
+
+    @Autowired
+    private UserSearchIndex searchIndex;
+
+    @Autowired
+    private UserStats stats;
+
+    @Autowired
+    private UserChangeLog changeLog;
+
     private User testUser;
 
     @BeforeEach
@@ -56,6 +92,8 @@ public class UserIntegrationTest {
     @AfterEach
     void tearDown() {
         userRepository.deleteAll();
+        // os dados de teste são gravados direto pelo repositório, sem passar pela service
+        responseCache.invalidateAll();
     }
 
     @Test
@@ -69,6 +107,189 @@ public class UserIntegrationTest {
                 .andExpect(jsonPath("$.data[0][0].email", is("integration@example.com")));
     }
 
+    @Test
+    void getAllUsers_WithLimit_ReturnsCursorForNextPage() throws Exception {
+        User secondUser = userRepository.save(User.builder()
+                .fullName("Second Integration User")
+                .email("second_integration@example.com")
+                .phone("+55 11 55555-5555")
+                .birthDate(LocalDate.of(1993, 3, 3))
+                .userType(EUserType.VIEWER)
+                .build());
+
+        MvcResult first = mockMvc.perform(get("/api/users").param("limit", "1").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0]", hasSize(1)))
+                .andExpect(jsonPath("$.data[0][0].id", is(testUser.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn();
+
+        mockMvc.perform(get("/api/users")
+                        .param("limit", "1")
+                        .param("after", nextCursor(first)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0][0].id", is(secondUser.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+
+    @Test
+    void getAllUsers_FilteredAndSortedByName_PagesInNameOrder() throws Exception {
+        User alice = userRepository.save(User.builder()
+                .fullName("Integration Alice")
+                .email("alice_integration@example.com")
+                .phone("+55 11 44444-4444")
+                .birthDate(LocalDate.of(1991, 1, 1))
+                .userType(EUserType.ADMIN)
+                .build());
+        userRepository.save(User.builder()
+                .fullName("Integration Bob")
+                .email("bob_integration@example.com")
+                .phone("+55 11 33333-3333")
+                .birthDate(LocalDate.of(1980, 1, 1))
+                .userType(EUserType.VIEWER)
+                .build());
+
+        // ADMINs nascidos depois de 1985 com nome começando em "Integration": Alice e o testUser
+        MvcResult first = mockMvc.perform(get("/api/users")
+                        .param("userType", "ADMIN")
+                        .param("birthDateFrom", "1985-01-01")
+                        .param("fullNamePrefix", "Integration")
+                        .param("sort", "fullName")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0]", hasSize(1)))
+                .andExpect(jsonPath("$.data[0][0].fullName", is("Integration Alice")))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn();
+
+        mockMvc.perform(get("/api/users")
+                        .param("userType", "ADMIN")
+                        .param("birthDateFrom", "1985-01-01")
+                        .param("fullNamePrefix", "Integration")
+                        .param("sort", "fullName")
+                        .param("limit", "1")
+                        .param("after", nextCursor(first)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0][0].fullName", is("Integration Test User")))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+
+    @Test
+    void getAllUsers_SortedByBirthDateDesc_ReturnsYoungestFirst() throws Exception {
+        userRepository.save(User.builder()
+                .fullName("Older User")
+                .email("older_integration@example.com")
+                .phone("+55 11 33333-3333")
+                .birthDate(LocalDate.of(1970, 1, 1))
+                .userType(EUserType.VIEWER)
+                .build());
+
+        mockMvc.perform(get("/api/users")
+                        .param("sort", "birthDate")
+                        .param("direction", "desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0][0].fullName", is("Integration Test User")))
+                .andExpect(jsonPath("$.data[0][1].fullName", is("Older User")));
+    }
+
+    @Test
+    void getAllUsers_CursorOfDeletedUserWhenSortingByName_ContinuesAfterIt() throws Exception {
+        User alice = userRepository.save(User.builder()
+                .fullName("Integration Alice")
+                .email("alice_integration@example.com")
+                .phone("+55 11 44444-4444")
+                .birthDate(LocalDate.of(1991, 1, 1))
+                .userType(EUserType.ADMIN)
+                .build());
+        MvcResult first = mockMvc.perform(get("/api/users")
+                        .param("sort", "fullName")
+                        .param("limit", "1"))
+                .andExpect(jsonPath("$.data[0][0].fullName", is("Integration Alice")))
+                .andReturn();
+
+        // o cursor traz o nome e o id da Alice: a próxima página não depende de ela ainda existir
+        mockMvc.perform(delete("/api/users/{id}", alice.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/users")
+                        .param("sort", "fullName")
+                        .param("after", nextCursor(first)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0][0].fullName", is("Integration Test User")));
+    }
+
+    @Test
+    void getAllUsers_InvalidCursorOrCursorOfAnotherSort_ReturnsBadRequest() throws Exception {
+        userRepository.save(User.builder()
+                .fullName("Second Integration User")
+                .email("second_integration@example.com")
+                .phone("+55 11 55555-5555")
+                .birthDate(LocalDate.of(1993, 3, 3))
+                .userType(EUserType.VIEWER)
+                .build());
+        MvcResult byId = mockMvc.perform(get("/api/users").param("limit", "1"))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn();
+
+        mockMvc.perform(get("/api/users").param("after", "999"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors", hasSize(1)));
+        mockMvc.perform(get("/api/users")
+                        .param("sort", "birthDate")
+                        .param("after", nextCursor(byId)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors", hasSize(1)));
+    }
+
+    @Test
+    void getAllUsers_AcceptNdjson_StreamsOneUserPerLine() throws Exception {
+        userRepository.save(User.builder()
+                .fullName("Second Integration User")
+                .email("second_integration@example.com")
+                .phone("+55 11 55555-5555")
+                .birthDate(LocalDate.of(1993, 3, 3))
+                .userType(EUserType.VIEWER)
+                .build());
+
+        MvcResult result = mockMvc.perform(get("/api/users").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("integration@example.com", objectMapper.readTree(lines[0]).get("email").asText());
+        assertEquals("second_integration@example.com", objectMapper.readTree(lines[1]).get("email").asText());
+    }
+
+    @Test
+    void getAllUsers_AcceptNdjsonWithInvalidCursorOrSort_ReturnsBadRequest() throws Exception {
+        for (String[] param : new String[][]{{"after", "999"}, {"sort", "nickname"}}) {
+            // Act: o status já vem definido antes de o corpo começar a ser escrito
+            MvcResult result = mockMvc.perform(get("/api/users")
+                            .param(param[0], param[1])
+                            .accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(status().isBadRequest())
+                    .andReturn();
+
+            // Assert
+            String body = mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            assertEquals(1, body.split("\n").length);
+            assertEquals(1, objectMapper.readTree(body).get("errors").size());
+        }
+    }
+
     @Test
     void getUserById_ExistingId_ReturnsUser() throws Exception {
         mockMvc.perform(get("/api/users/{id}", testUser.getId()))
@@ -80,6 +301,76 @@ public class UserIntegrationTest {
                 .andExpect(jsonPath("$.data[0].userType", is("ADMIN")));
     }
 
+    @Test
+    void getUserById_AfterDelete_IsNotServedFromCache() throws Exception {
+        long hitsBefore = responseCache.stats().hitCount();
+
+        mockMvc.perform(get("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk());
+        assertEquals(hitsBefore + 1, responseCache.stats().hitCount());
+
+        mockMvc.perform(delete("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getUserById_SameETag_ReturnsNotModifiedUntilUpdated() throws Exception {
+        String etag = mockMvc.perform(get("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/users/{id}", testUser.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        UserModel update = new UserModel()
+                .fullName("Updated Integration User")
+                .email("integration@example.com")
+                .phone("+55 11 99999-9999")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .userType(UserModel.UserTypeEnum.ADMIN);
+        mockMvc.perform(put("/api/users/{id}", testUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isOk());
+
+        String newEtag = mockMvc.perform(get("/api/users/{id}", testUser.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].fullName", is("Updated Integration User")))
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(etag, newEtag);
+    }
+
+    @Test
+    void getAllUsers_AfterCreate_ReturnsNewPage() throws Exception {
+        String etag = mockMvc.perform(get("/api/users"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/users").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        UserModel newUser = new UserModel()
+                .fullName("Second Integration User")
+                .email("second_integration@example.com")
+                .phone("+55 11 77777-7777")
+                .birthDate(LocalDate.of(1992, 2, 2))
+                .userType(UserModel.UserTypeEnum.VIEWER);
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUser)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/users").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0]", hasSize(2)));
+    }
+
     @Test
     void getUserById_NonExistingId_ReturnsBadRequest() throws Exception {
         mockMvc.perform(get("/api/users/999"))
@@ -88,6 +379,227 @@ public class UserIntegrationTest {
                 .andExpect(jsonPath("$.errors[0]", is("Usuário não foi encontrado!!")));
     }
 
+    @Test
+    void lookupUsers_GetWithIds_ReturnsUsersInRequestOrderAndMissingIds() throws Exception {
+        User secondUser = userRepository.save(User.builder()
+                .fullName("Second Integration User")
+                .email("second_integration@example.com")
+                .phone("+55 11 88888-8888")
+                .birthDate(LocalDate.of(1995, 5, 5))
+                .userType(EUserType.EDITOR)
+                .build());
+        long missingId = secondUser.getId() + 1000;
+
+        mockMvc.perform(get("/api/users")
+                        .param("ids", secondUser.getId() + "," + missingId + "," + testUser.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.data[0].email", is("second_integration@example.com")))
+                .andExpect(jsonPath("$.data[1].email", is("integration@example.com")))
+                .andExpect(jsonPath("$.errors[0]", is("Usuário não foi encontrado: " + missingId)));
+    }
+
+    @Test
+    void lookupUsers_OneUserCached_ReadsOnlyTheOthersInOneStatement() throws Exception {
+        User secondUser = userRepository.save(User.builder()
+                .fullName("Second Integration User")
+                .email("second_integration@example.com")
+                .phone("+55 11 88888-8888")
+                .birthDate(LocalDate.of(1995, 5, 5))
+                .userType(EUserType.EDITOR)
+                .build());
+        mockMvc.perform(get("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk());
+        long hitsBefore = responseCache.stats().hitCount();
+
+        mockMvc.perform(post("/api/users/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testUser.getId(), secondUser.getId()))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatsFilter.STATEMENTS_HEADER, "1"))
+                .andExpect(jsonPath("$.data[0].email", is("integration@example.com")))
+                .andExpect(jsonPath("$.data[1].email", is("second_integration@example.com")));
+        assertEquals(hitsBefore + 1, responseCache.stats().hitCount());
+    }
+
+    @Test
+    void getUsersByEmail_OtherCase_ReturnsUser() throws Exception {
+        mockMvc.perform(get("/api/users/by-email/{email}", "Integration@EXAMPLE.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].id", is(testUser.getId().intValue())))
+                .andExpect(jsonPath("$.data[0].email", is("integration@example.com")));
+    }
+
+    @Test
+    void getUsersByEmail_LowercaseEmail_IsAnIndexLookup() {
+        var entityManager = entityManagerFactory.createEntityManager();
+        try {
+            String plan = (String) entityManager
+                    .createNativeQuery("explain select * from users where email_lower = lower('Integration@EXAMPLE.com')")
+                    .getSingleResult();
+
+            assertTrue(plan.contains("IDX_USERS_EMAIL_LOWER"), plan);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void getUserByPhone_OtherFormatting_ReturnsUser() throws Exception {
+        mockMvc.perform(get("/api/users/by-phone/{phone}", "+55 (11) 99999-9999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id", is(testUser.getId().intValue())));
+
+        mockMvc.perform(get("/api/users/by-phone/{phone}", "+55 11 00000-0000"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("Usuário não foi encontrado!!")));
+    }
+
+    @Test
+    void searchUsers_AfterCreateAndDelete_FollowsTheWrites() throws Exception {
+        rebuild(searchIndex);
+
+        mockMvc.perform(get("/api/users/search").param("q", "integration TEST"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].id", is(testUser.getId().intValue())));
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserModel()
+                                .fullName("Search Target")
+                                .email("search_target@example.com")
+                                .phone("+55 11 77777-7777")
+                                .birthDate(LocalDate.of(1992, 2, 2))
+                                .userType(UserModel.UserTypeEnum.VIEWER))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/search").param("q", "targ"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].email", is("search_target@example.com")));
+
+        mockMvc.perform(delete("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/search").param("q", "integration"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void getUserStats_AfterCreateUpdateAndDelete_FollowsTheWrites() throws Exception {
+        // os dados de outros testes são apagados pelo repositório, sem passar pelos contadores
+        rebuild(stats);
+
+        mockMvc.perform(get("/api/users/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].total", is(1)))
+                .andExpect(jsonPath("$.data[0].byUserType.ADMIN", is(1)))
+                .andExpect(jsonPath("$.data[0].birthYears.1990", is(1)))
+                .andExpect(jsonPath("$.data[0].reconciledAt", notNullValue()));
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserModel()
+                                .fullName("Stats Target")
+                                .email("stats_target@example.com")
+                                .phone("+55 11 77777-7777")
+                                .birthDate(LocalDate.of(1992, 2, 2))
+                                .userType(UserModel.UserTypeEnum.VIEWER))))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/users/{id}", testUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserModel()
+                                .fullName("Integration Test User")
+                                .email("integration@example.com")
+                                .phone("+55 11 99999-9999")
+                                .birthDate(LocalDate.of(1985, 5, 5))
+                                .userType(UserModel.UserTypeEnum.EDITOR))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/users/stats"))
+                .andExpect(jsonPath("$.data[0].total", is(2)))
+                .andExpect(jsonPath("$.data[0].byUserType.ADMIN", is(0)))
+                .andExpect(jsonPath("$.data[0].byUserType.EDITOR", is(1)))
+                .andExpect(jsonPath("$.data[0].byUserType.VIEWER", is(1)))
+                .andExpect(jsonPath("$.data[0].birthYears.1985", is(1)))
+                .andExpect(jsonPath("$.data[0].birthYears.1990").doesNotExist());
+
+        mockMvc.perform(delete("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/stats"))
+                .andExpect(jsonPath("$.data[0].total", is(1)))
+                .andExpect(jsonPath("$.data[0].byUserType.EDITOR", is(0)));
+
+        // a conferência com o banco chega nos mesmos números
+        rebuild(stats);
+        mockMvc.perform(get("/api/users/stats"))
+                .andExpect(jsonPath("$.data[0].total", is(1)))
+                .andExpect(jsonPath("$.data[0].byUserType.VIEWER", is(1)))
+                .andExpect(jsonPath("$.data[0].birthYears.1992", is(1)));
+    }
+
+    @Test
+    void getUserStats_CreateRejectedByConstraint_IsNotCounted() throws Exception {
+        rebuild(stats);
+
+        // mesmo email do testUser: o INSERT falha no commit e nada pode ter sido contado
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserModel()
+                                .fullName("Duplicate")
+                                .email("integration@example.com")
+                                .phone("+55 11 70000-0000")
+                                .birthDate(LocalDate.of(1970, 7, 7))
+                                .userType(UserModel.UserTypeEnum.VIEWER))))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/users/stats"))
+                .andExpect(jsonPath("$.data[0].total", is(1)))
+                .andExpect(jsonPath("$.data[0].byUserType.VIEWER", is(0)))
+                .andExpect(jsonPath("$.data[0].birthYears.1970").doesNotExist());
+    }
+
+    @Test
+    void streamChanges_SinceBeforeWrites_StreamsEachWriteInOrder() throws Exception {
+        long since = changeLog.lastSeq();
+        MvcResult result = mockMvc.perform(get("/api/users/changes")
+                        .param("since", Long.toString(since))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(patch("/api/users/{id}", testUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fullName\": \"Streamed User\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk());
+
+        String events = awaitContent(result, "event:DELETED");
+        assertTrue(events.indexOf("id:" + (since + 1) + "\nevent:UPDATED") >= 0, events);
+        assertTrue(events.indexOf("id:" + (since + 2) + "\nevent:DELETED") > events.indexOf("event:UPDATED"), events);
+        assertTrue(events.contains("\"id\":" + testUser.getId()), events);
+    }
+
+    @Test
+    void streamChanges_CursorFromAnotherRun_SendsReset() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/users/changes")
+                        .header("Last-Event-ID", Long.toString(changeLog.lastSeq() + 1000))
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String events = awaitContent(result, "event:" + UserChangeFeed.RESET);
+        assertTrue(events.contains("id:" + changeLog.lastSeq()), events);
+    }
+
+    @Test
+    void searchUsers_OnlyShortWords_ReturnsBadRequest() throws Exception {
+        rebuild(searchIndex);
+
+        mockMvc.perform(get("/api/users/search").param("q", "in te"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void createUser_ValidUser_ReturnsCreatedUser() throws Exception {
         UserModel newUser = new UserModel()
@@ -126,7 +638,208 @@ public class UserIntegrationTest {
                         .content(objectMapper.writeValueAsString(duplicateUser)))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$.errors[0]", is("Email já existe no banco de dados")));
+                .andExpect(jsonPath("$.errors[0]", is("Email já existe no banco de dados!")));
+    }
+
+    @Test
+    void createUser_DuplicatePhone_ReturnsBadRequest() throws Exception {
+        userRepository.save(User.builder()
+                .fullName("Normalized Phone User")
+                .email("normalized_phone@example.com")
+                .phone("+5511444444444")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .userType(EUserType.VIEWER)
+                .build());
+
+        UserModel duplicateUser = new UserModel()
+                .fullName("Duplicate Phone User")
+                .email("duplicate_phone@example.com")
+                .phone("+55 (11) 44444-4444") // Same as above once normalized
+                .birthDate(LocalDate.of(1985, 10, 10))
+                .userType(UserModel.UserTypeEnum.VIEWER);
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(duplicateUser)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("Telefone já existe no banco de dados!")));
+    }
+
+    @Test
+    void createUser_RejectedByConstraint_DoesNotReachUniquenessFilter() throws Exception {
+        rebuild(uniquenessFilter);
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserModel()
+                                .fullName("Rejected User")
+                                .email("rejected@example.com")
+                                .phone("+55 11 99999-9999")
+                                .birthDate(LocalDate.of(1985, 10, 10))
+                                .userType(UserModel.UserTypeEnum.VIEWER))))
+                .andExpect(status().isBadRequest());
+
+        // o insert desfeito não chega ao filtro, só o que foi commitado
+        assertFalse(uniquenessFilter.mightContainEmail("rejected@example.com"));
+        assertTrue(uniquenessFilter.mightContainEmail("integration@example.com"));
+    }
+
+    @Test
+    void createUser_ConcurrentDuplicates_OnlyOneIsCreated() throws Exception {
+        int requests = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> statuses = new ArrayList<>();
+
+        for (int i = 0; i < requests; i++) {
+            String body = objectMapper.writeValueAsString(new UserModel()
+                    .fullName("Concurrent User " + i)
+                    .email("concurrent@example.com")
+                    .phone("+55 11 1000" + i + "-0000")
+                    .birthDate(LocalDate.of(1990, 1, 1))
+                    .userType(UserModel.UserTypeEnum.VIEWER));
+
+            statuses.add(executor.submit(() -> {
+                start.await();
+                return mockMvc.perform(post("/api/users")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                        .andReturn()
+                        .getResponse()
+                        .getStatus();
+            }));
+        }
+        start.countDown();
+
+        int created = 0;
+        for (Future<Integer> status : statuses) {
+            if (status.get(30, TimeUnit.SECONDS) == 200)
+                created++;
+        }
+        executor.shutdown();
+
+        assertEquals(1, created);
+        assertEquals(2, userRepository.count());
+    }
+
+    @Test
+    void createUsers_JsonArray_InsertsEveryUser() throws Exception {
+        List<UserModel> newUsers = List.of(
+                new UserModel()
+                        .fullName("Bulk User One")
+                        .email("bulk_one@example.com")
+                        .phone("+55 11 11111-1111")
+                        .birthDate(LocalDate.of(1991, 1, 1))
+                        .userType(UserModel.UserTypeEnum.VIEWER),
+                new UserModel()
+                        .fullName("Bulk User Two")
+                        .email("bulk_two@example.com")
+                        .phone("+55 11 22222-2222")
+                        .birthDate(LocalDate.of(1992, 2, 2))
+                        .userType(UserModel.UserTypeEnum.EDITOR));
+
+        mockMvc.perform(post("/api/users/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUsers)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)));
+
+        assertEquals("Bulk User One", userRepository.findByEmail("bulk_one@example.com").getFullName());
+        assertEquals("+5511222222222", userRepository.findByEmail("bulk_two@example.com").getPhone());
+    }
+
+    @Test
+    void createUsers_Ndjson_InsertsEveryUser() throws Exception {
+        String body = objectMapper.writeValueAsString(new UserModel()
+                        .fullName("Ndjson User One")
+                        .email("ndjson_one@example.com")
+                        .phone("+55 11 11111-1111")
+                        .birthDate(LocalDate.of(1991, 1, 1))
+                        .userType(UserModel.UserTypeEnum.VIEWER))
+                + "\n"
+                + objectMapper.writeValueAsString(new UserModel()
+                        .fullName("Ndjson User Two")
+                        .email("ndjson_two@example.com")
+                        .phone("+55 11 22222-2222")
+                        .birthDate(LocalDate.of(1992, 2, 2))
+                        .userType(UserModel.UserTypeEnum.EDITOR));
+
+        mockMvc.perform(post("/api/users/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)));
+
+        assertEquals(3, userRepository.count());
+    }
+
+    @Test
+    void createUsers_NdjsonWithNullLine_ReturnsBadRequest() throws Exception {
+        String body = objectMapper.writeValueAsString(new UserModel()
+                        .fullName("Ndjson User One")
+                        .email("ndjson_one@example.com")
+                        .phone("+55 11 11111-1111")
+                        .birthDate(LocalDate.of(1991, 1, 1))
+                        .userType(UserModel.UserTypeEnum.VIEWER))
+                + "\nnull\n";
+
+        mockMvc.perform(post("/api/users/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors", hasSize(1)));
+
+        assertEquals(1, userRepository.count());
+    }
+
+    @Test
+    void createUsers_JsonArrayWithNull_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/users/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[null]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("Usuário 0: usuário nulo!")));
+
+        assertEquals(1, userRepository.count());
+    }
+
+    @Test
+    void createUsers_NdjsonOverTheLimit_StopsReadingWithPayloadTooLarge() throws Exception {
+        // o limite é checado antes da validação: linhas vazias bastam
+        String body = "{}\n".repeat(UserService.MAX_BULK_SIZE + 1);
+
+        mockMvc.perform(post("/api/users/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.errors", hasSize(1)));
+
+        assertEquals(1, userRepository.count());
+    }
+
+    @Test
+    void createUsers_OneDuplicateEmail_InsertsNothing() throws Exception {
+        List<UserModel> newUsers = List.of(
+                new UserModel()
+                        .fullName("Bulk User One")
+                        .email("bulk_one@example.com")
+                        .phone("+55 11 11111-1111")
+                        .birthDate(LocalDate.of(1991, 1, 1))
+                        .userType(UserModel.UserTypeEnum.VIEWER),
+                new UserModel()
+                        .fullName("Bulk Duplicate")
+                        .email("integration@example.com") // Same as testUser
+                        .phone("+55 11 22222-2222")
+                        .birthDate(LocalDate.of(1992, 2, 2))
+                        .userType(UserModel.UserTypeEnum.EDITOR));
+
+        mockMvc.perform(post("/api/users/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newUsers)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("Usuário 1: Email já existe no banco de dados!")));
+
+        assertEquals(1, userRepository.count());
     }
 
     @Test
@@ -155,6 +868,228 @@ public class UserIntegrationTest {
         assertEquals(EUserType.VIEWER, updatedUserInDb.getUserType());
     }
 
+    @Test
+    void updateUser_ValidUpdate_RunsLockedReadAndUpdate() throws Exception {
+        UserModel updatedUser = new UserModel()
+                .fullName("Updated Integration User")
+                .email("integration@example.com")
+                .phone("+55 11 99999-9999")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .userType(UserModel.UserTypeEnum.EDITOR);
+        Statistics statistics = statistics();
+
+        mockMvc.perform(put("/api/users/{id}", testUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedUser)))
+                .andExpect(status().isOk());
+
+        // antes: select do controller, exists, select do merge e o update
+        // agora: select ... for update da linha e o update
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateUser_NonExistingId_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(put("/api/users/999")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserModel()
+                                .fullName("Nobody")
+                                .email("nobody@example.com")
+                                .phone("+55 11 11111-1111")
+                                .birthDate(LocalDate.of(1990, 1, 1))
+                                .userType(UserModel.UserTypeEnum.VIEWER))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("User not found with ID: 999")));
+    }
+
+    @Test
+    void updateUser_EmailOfAnotherUser_ReturnsBadRequest() throws Exception {
+        User otherUser = userRepository.save(User.builder()
+                .fullName("Other Integration User")
+                .email("other_integration@example.com")
+                .phone("+55 11 44444-4444")
+                .birthDate(LocalDate.of(1991, 1, 1))
+                .userType(EUserType.VIEWER)
+                .build());
+
+        mockMvc.perform(put("/api/users/{id}", otherUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserModel()
+                                .fullName("Other Integration User")
+                                .email("integration@example.com")
+                                .phone("+55 11 44444-4444")
+                                .birthDate(LocalDate.of(1991, 1, 1))
+                                .userType(UserModel.UserTypeEnum.VIEWER))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("Email já existe no banco de dados!")));
+
+        assertEquals("other_integration@example.com", userRepository.findById(otherUser.getId()).orElseThrow().getEmail());
+    }
+
+    @Test
+    void patchUser_SparseBody_ChangesOnlyFieldsSent() throws Exception {
+        Statistics statistics = statistics();
+
+        mockMvc.perform(patch("/api/users/{id}", testUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fullName\": \"Patched Integration User\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].fullName", is("Patched Integration User")))
+                .andExpect(jsonPath("$.data[0].email", is("integration@example.com")))
+                .andExpect(jsonPath("$.data[0].userType", is("ADMIN")));
+
+        // a leitura travada, o update só das colunas enviadas e a leitura do usuário atualizado para a resposta
+        assertEquals(3, statistics.getPrepareStatementCount());
+        User patched = userRepository.findById(testUser.getId()).orElseThrow();
+        assertEquals("Patched Integration User", patched.getFullName());
+        assertEquals("+5511999999999", patched.getPhone());
+        assertEquals(LocalDate.of(1990, 1, 1), patched.getBirthDate());
+    }
+
+    @Test
+    void patchUser_ExplicitNull_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(patch("/api/users/{id}", testUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": null}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", containsString("Email is required")));
+
+        assertEquals("integration@example.com", userRepository.findById(testUser.getId()).orElseThrow().getEmail());
+    }
+
+    @Test
+    void patchUser_EmailOfAnotherUser_ReturnsBadRequest() throws Exception {
+        User otherUser = userRepository.save(User.builder()
+                .fullName("Other Integration User")
+                .email("other_integration@example.com")
+                .phone("+55 11 44444-4444")
+                .birthDate(LocalDate.of(1991, 1, 1))
+                .userType(EUserType.VIEWER)
+                .build());
+
+        mockMvc.perform(patch("/api/users/{id}", otherUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\": \"integration@example.com\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("Email já existe no banco de dados!")));
+    }
+
+    @Test
+    void updateUser_IfMatchCurrentVersion_UpdatesAndReturnsNextETag() throws Exception {
+        String etag = mockMvc.perform(get("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        UserModel updatedUser = new UserModel()
+                .fullName("Conditional Update")
+                .email("integration@example.com")
+                .phone("+55 11 99999-9999")
+                .birthDate(LocalDate.of(1990, 1, 1))
+                .userType(UserModel.UserTypeEnum.ADMIN);
+
+        String newEtag = mockMvc.perform(put("/api/users/{id}", testUser.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedUser)))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertNotEquals(etag, newEtag);
+        // o GET seguinte já devolve a versão nova
+        mockMvc.perform(get("/api/users/{id}", testUser.getId()))
+                .andExpect(header().string("ETag", newEtag));
+    }
+
+    @Test
+    void updateUser_IfMatchOutdatedVersion_ReturnsPreconditionFailed() throws Exception {
+        String etag = mockMvc.perform(get("/api/users/{id}", testUser.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+        // outro cliente altera o usuário depois da leitura
+        mockMvc.perform(patch("/api/users/{id}", testUser.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"fullName\": \"Someone Else\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/users/{id}", testUser.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserModel()
+                                .fullName("Lost Update")
+                                .email("integration@example.com")
+                                .phone("+55 11 99999-9999")
+                                .birthDate(LocalDate.of(1990, 1, 1))
+                                .userType(UserModel.UserTypeEnum.ADMIN))))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.errors[0]", is("O usuário foi alterado desde a versão enviada no If-Match!")));
+
+        assertEquals("Someone Else", userRepository.findById(testUser.getId()).orElseThrow().getFullName());
+    }
+
+    @Test
+    void deleteUser_IfMatchOutdatedVersion_ReturnsPreconditionFailed() throws Exception {
+        String etag = mockMvc.perform(get("/api/users/{id}", testUser.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(patch("/api/users/{id}", testUser.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userType\": \"VIEWER\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/users/{id}", testUser.getId()).header("If-Match", etag))
+                .andExpect(status().isPreconditionFailed());
+
+        assertTrue(userRepository.existsById(testUser.getId()));
+    }
+
+    @Test
+    void createUser_FormattedPhone_IsStoredNormalizedAndFoundByAnyFormat() throws Exception {
+        // gravado direto pelo repositório, sem passar pelo controller
+        User saved = userRepository.save(User.builder()
+                .fullName("Formatted Phone User")
+                .email("formatted_phone@example.com")
+                .phone("+48 (473) 198-9995")
+                .birthDate(LocalDate.of(1985, 5, 5))
+                .userType(EUserType.EDITOR)
+                .build());
+
+        assertEquals("+484731989995", userRepository.findById(saved.getId()).orElseThrow().getPhone());
+        assertEquals(saved.getId(), userRepository.findByPhone("+48 473 198 9995").getId());
+        assertTrue(userRepository.existsByPhone("+484731989995"));
+        assertEquals(List.of("+484731989995"), userRepository.findExistingPhones(List.of("+48 (473) 198-9995")));
+
+        // mesmo número com outra formatação bate no índice único
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserModel()
+                                .fullName("Same Phone")
+                                .email("same_phone@example.com")
+                                .phone("+48 473-198-9995")
+                                .birthDate(LocalDate.of(1985, 5, 5))
+                                .userType(UserModel.UserTypeEnum.VIEWER))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0]", is("Telefone já existe no banco de dados!")));
+    }
+
+    @Test
+    void deleteUser_ExistingId_RunsLockedReadAndDelete() throws Exception {
+        Statistics statistics = statistics();
+
+        mockMvc.perform(delete("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk());
+
+        // antes: exists, select do deleteById, delete e exists de novo
+        // agora: select ... for update da linha e o delete
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void deleteUser_ExistingId_ReportsStatementCountInHeaders() throws Exception {
+        mockMvc.perform(delete("/api/users/{id}", testUser.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatsFilter.STATEMENTS_HEADER, "2"))
+                .andExpect(header().string(SqlStatsFilter.TIME_HEADER, endsWith("ms")));
+    }
+
     @Test
     void deleteUser_ExistingId_DeletesUserAndReturnsSuccess() throws Exception {
         MvcResult result = mockMvc.perform(delete("/api/users/{id}", testUser.getId()))
@@ -174,4 +1109,33 @@ public class UserIntegrationTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.errors[0]", is("Usuário não existe!")));
     }
-}
\ No newline at end of file
+
+    // Os dados de teste não passam pela service: espera a montagem da subida e monta de novo a partir da tabela
+    private static void rebuild(UserTableMirror<?> mirror) throws InterruptedException {
+        while (!mirror.isReady())
+            Thread.sleep(10);
+        mirror.rebuild();
+    }
+
+    private static String nextCursor(MvcResult result) throws Exception {
+        return JsonPath.read(result.getResponse().getContentAsString(), "$.nextCursor");
+    }
+
+    // O stream de SSE não termina: espera o trecho esperado aparecer na resposta
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+        return content;
+    }
+
+    // Estatísticas do Hibernate zeradas, para contar só os statements da requisição seguinte
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}